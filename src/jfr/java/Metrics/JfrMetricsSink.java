@@ -0,0 +1,60 @@
+package Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ *  Sink emitting JFR events, so that phases and counters of a running service appear in a flight recording next to
+ * GC and thread events. Events are committed only while a recording has them enabled, otherwise only the check of
+ * enablement is done.
+ */
+public class JfrMetricsSink implements MetricsSink {
+    @Override
+    public void phaseCompleted(Phase phase, long startNanos, long durationNanos) {
+        PhaseEvent event = new PhaseEvent();
+        if (event.shouldCommit()) {
+            event.phase = phase.name();
+            event.elapsed = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void countAdded(Counter counter, long amount) {
+        CounterEvent event = new CounterEvent();
+        if (event.shouldCommit()) {
+            event.counter = counter.name();
+            event.amount = amount;
+            event.commit();
+        }
+    }
+
+    @Name("Voronoi.Phase")
+    @Label("Voronoi Phase")
+    @Category("Voronoi")
+    @Description("Completed phase of diagram generation")
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("Voronoi.Counter")
+    @Label("Voronoi Counter")
+    @Category("Voronoi")
+    @Description("Amount of work done by one tile, strip or call")
+    static class CounterEvent extends Event {
+        @Label("Counter")
+        String counter;
+
+        @Label("Amount")
+        long amount;
+    }
+}
@@ -0,0 +1,21 @@
+package Benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *  Entry point of benchmarks jar. Accepts the same arguments as JMH itself (benchmark regexp, -p for parameters, -f,
+ * -wi, -i and so on) and always attaches GC profiler, so that allocation rate (gc.alloc.rate.norm, bytes per
+ * operation) is reported next to the time of each benchmark.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package Benchmarks;
+
+import PixelByPixelMethod.EuclideanFeatureTransform;
+import PixelByPixelMethod.IncrementalRaster;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Benchmarks of raster engines working with euclidean distance only, so they are not multiplied by metrics of
+ * {@link PixelMethodBenchmark}. Sites are the same as there for equal parameters, so results may be compared with its
+ * "euclidean" runs. Labels are returned so that the work is not eliminated by JIT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EuclideanPixelBenchmark {
+    @Param({"100", "500"})
+    public int sitesValue;
+
+    @Param({"512", "1024"})
+    public int imageSize;
+
+    @Param({"UNIFORM", "CLUSTERED", "COLLINEAR"})
+    public SiteDistribution distribution;
+
+    @Param({"42"})
+    public long seed;
+
+    //  interest points and their colors
+    private int[] interestPointsX;
+    private int[] interestPointsY;
+    private int[] interestPointsColors;
+
+    //  incremental engine, interest point 0 is moved between its own position and another free one
+    private IncrementalRaster incrementalRaster;
+    private int[] movePositions;
+    private boolean isMoved;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.interestPointsX = new int[this.sitesValue];
+        this.interestPointsY = new int[this.sitesValue];
+        this.distribution.fill(this.interestPointsX, this.interestPointsY, this.imageSize, this.seed);
+        this.interestPointsColors = new int[this.sitesValue];
+        for (int i = 0; i < this.sitesValue; i++)
+            this.interestPointsColors[i] = (int) ((i * 2654435761L) & 0xFFFFFF);
+
+        this.incrementalRaster = new IncrementalRaster(this.interestPointsX, this.interestPointsY, this.interestPointsColors,
+                this.sitesValue, this.imageSize);
+        HashSet<Long> occupied = new HashSet<>();
+        for (int i = 0; i < this.sitesValue; i++)
+            occupied.add(((long) this.interestPointsX[i] << 32) | this.interestPointsY[i]);
+        int target = this.imageSize * this.imageSize / 2;
+        while (occupied.contains(((long) (target % this.imageSize) << 32) | (target / this.imageSize)))
+            target = (target + 1) % (this.imageSize * this.imageSize);
+        this.movePositions = new int[]{this.interestPointsX[0], this.interestPointsY[0], target % this.imageSize, target / this.imageSize};
+        this.isMoved = false;
+    }
+
+    @Benchmark
+    public int[] featureTransform() {
+        return new EuclideanFeatureTransform(this.interestPointsX, this.interestPointsY, this.sitesValue, this.imageSize)
+                .computeLabels(null);
+    }
+
+    @Benchmark
+    public int[] incrementalMove() {
+        int offset = this.isMoved ? 0 : 2;
+        this.incrementalRaster.moveInterestPoint(0, this.movePositions[offset], this.movePositions[offset + 1]);
+        this.isMoved = !this.isMoved;
+        return this.incrementalRaster.getLabels();
+    }
+}
@@ -0,0 +1,74 @@
+package Benchmarks;
+
+import HalfPlaneIntersectionOld.LocusMethod;
+import HalfPlaneIntersectionOld.ParametersOld;
+import HalfPlaneIntersectionOld.SiteOld;
+import PixelByPixelMethod.PolygonRasterizer;
+import Sites.SiteStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Benchmarks of locus engines, one per {@link LocusMethod}. Each operation finds locus of every site inside of
+ * {@link ParametersOld} area, the same work as done by the diagram window before painting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocusMethodBenchmark {
+    @Param({"100", "400"})
+    public int sitesValue;
+
+    @Param({"UNIFORM", "CLUSTERED", "COLLINEAR"})
+    public SiteDistribution distribution;
+
+    @Param({"42"})
+    public long seed;
+
+    @Param({"HALF_PLANE_AREA", "HALF_PLANE_POLYGON", "HALF_PLANE_PRUNED", "FORTUNE", "DELAUNAY"})
+    public LocusMethod locusMethod;
+
+    private ArrayList<SiteOld> siteOlds;
+    private SiteStore siteStore;
+
+    //  loci found once for rasterization benchmark and its label image
+    private double[][] polygons;
+    private int[] labels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int areaSize = Math.min(ParametersOld.xLimit, ParametersOld.yLimit);
+        int[] sitesX = new int[this.sitesValue];
+        int[] sitesY = new int[this.sitesValue];
+        this.distribution.fill(sitesX, sitesY, areaSize, this.seed);
+
+        this.siteOlds = new ArrayList<>();
+        for (int i = 0; i < this.sitesValue; i++)
+            this.siteOlds.add(new SiteOld(sitesX[i], sitesY[i]));
+        this.siteStore = SiteOld.toStore(this.siteOlds);
+        this.polygons = this.locusMethod.findLocusPolygons(this.siteStore);
+        this.labels = new int[ParametersOld.xLimit * ParametersOld.yLimit];
+    }
+
+    @Benchmark
+    public ArrayList<SiteOld> findLoci() {
+        this.locusMethod.findLoci(this.siteOlds);
+        return this.siteOlds;
+    }
+
+    @Benchmark
+    public double[][] findLocusPolygons() {
+        return this.locusMethod.findLocusPolygons(this.siteStore);
+    }
+
+    @Benchmark
+    public int[] rasterizeLocusPolygons() {
+        new PolygonRasterizer(ParametersOld.xLimit, ParametersOld.yLimit).fillLabels(this.polygons, this.labels, null);
+        return this.labels;
+    }
+}
@@ -0,0 +1,94 @@
+package Benchmarks;
+
+import PixelByPixelMethod.DistanceMetric;
+import PixelByPixelMethod.JumpFlooding;
+import PixelByPixelMethod.NearestSiteKernel;
+import PixelByPixelMethod.NearestSiteGrid;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Benchmarks of raster engines supporting any metric: each operation builds label image of all pixels. Engines
+ * working with euclidean distance only are in {@link EuclideanPixelBenchmark}. Labels are returned so that the work is
+ * not eliminated by JIT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PixelMethodBenchmark {
+    @Param({"100", "500"})
+    public int sitesValue;
+
+    @Param({"512", "1024"})
+    public int imageSize;
+
+    @Param({"UNIFORM", "CLUSTERED", "COLLINEAR"})
+    public SiteDistribution distribution;
+
+    @Param({"euclidean", "manhattan", "chebyshev", "minkowski:3"})
+    public String metricName;
+
+    @Param({"42"})
+    public long seed;
+
+    //  metric resolved from its name once per trial
+    private DistanceMetric metric;
+
+    //  interest points
+    private int[] interestPointsX;
+    private int[] interestPointsY;
+
+    //  output of raster engines
+    private int[] labels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.interestPointsX = new int[this.sitesValue];
+        this.interestPointsY = new int[this.sitesValue];
+        this.distribution.fill(this.interestPointsX, this.interestPointsY, this.imageSize, this.seed);
+        this.labels = new int[this.imageSize * this.imageSize];
+        this.metric = DistanceMetric.parse(this.metricName);
+    }
+
+    @Benchmark
+    public int[] bruteForce() {
+        for (int y = 0; y < this.imageSize; y++)
+            for (int x = 0; x < this.imageSize; x++)
+                this.labels[y * this.imageSize + x] = this.metric.findClosest(
+                        this.interestPointsX, this.interestPointsY, this.sitesValue, x, y);
+        return this.labels;
+    }
+
+    /**
+     * linear scan through the fastest available loop, vectorized one needs build with "vector" profile and forks
+     * started with -jvmArgsAppend --add-modules=jdk.incubator.vector
+     */
+    @Benchmark
+    public int[] bruteForceKernel() {
+        NearestSiteKernel kernel = NearestSiteKernel.forMetric(this.metric, this.imageSize);
+        for (int y = 0; y < this.imageSize; y++)
+            for (int x = 0; x < this.imageSize; x++)
+                this.labels[y * this.imageSize + x] = kernel.findClosest(
+                        this.interestPointsX, this.interestPointsY, this.sitesValue, x, y);
+        return this.labels;
+    }
+
+    @Benchmark
+    public int[] grid() {
+        NearestSiteGrid siteGrid = new NearestSiteGrid(this.interestPointsX, this.interestPointsY, this.sitesValue, this.imageSize);
+        for (int y = 0; y < this.imageSize; y++)
+            for (int x = 0; x < this.imageSize; x++)
+                this.labels[y * this.imageSize + x] = siteGrid.findClosest(x, y, this.metric);
+        return this.labels;
+    }
+
+    @Benchmark
+    public int[] jumpFlooding() {
+        return new JumpFlooding(this.interestPointsX, this.interestPointsY, this.sitesValue, this.imageSize)
+                .computeLabels(this.metric, true);
+    }
+}
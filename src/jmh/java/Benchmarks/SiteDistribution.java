@@ -0,0 +1,71 @@
+package Benchmarks;
+
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ *  Seeded layouts of sites used by benchmarks. Every layout gives unique integer coordinates inside of the square area,
+ * the same seed always gives the same sites, so results of different runs are comparable.
+ */
+public enum SiteDistribution {
+    //  sites spread evenly over the whole area
+    UNIFORM,
+    //  sites gathered around few centers, most cells are tiny and few are huge
+    CLUSTERED,
+    //  sites on the diagonal of the area, degenerate case for sweep and triangulation
+    COLLINEAR;
+
+    //  amount of cluster centers in clustered layout
+    private static final int CLUSTERS = 8;
+
+    /**
+     * Generate sites
+     * @param sitesX storage for X coordinates, its length is the amount of sites
+     * @param sitesY storage for Y coordinates, the same length
+     * @param areaSize side of the square area, coordinates are in [0, areaSize)
+     * @param seed seed of the random generator
+     */
+    public void fill(int[] sitesX, int[] sitesY, int areaSize, long seed) {
+        int sitesValue = sitesX.length;
+        if (this == COLLINEAR && sitesValue > areaSize)
+            throw new IllegalArgumentException("Only " + areaSize + " unique sites fit on the diagonal, " + sitesValue + " requested");
+        if ((long) sitesValue > (long) areaSize * areaSize)
+            throw new IllegalArgumentException("Only " + (long) areaSize * areaSize + " unique sites fit into the area, " + sitesValue + " requested");
+
+        Random random = new Random(seed);
+        int[] centersX = new int[CLUSTERS];
+        int[] centersY = new int[CLUSTERS];
+        for (int i = 0; i < CLUSTERS; i++) {
+            centersX[i] = random.nextInt(areaSize);
+            centersY[i] = random.nextInt(areaSize);
+        }
+
+        //  coordinates packed into one number, repeated positions are generated again
+        HashSet<Long> occupied = new HashSet<>();
+        for (int i = 0; i < sitesValue; i++) {
+            int x, y;
+            do {
+                switch (this) {
+                    case CLUSTERED:
+                        int cluster = random.nextInt(CLUSTERS);
+                        x = clamp((int) Math.round(centersX[cluster] + random.nextGaussian() * areaSize / 20.0), areaSize);
+                        y = clamp((int) Math.round(centersY[cluster] + random.nextGaussian() * areaSize / 20.0), areaSize);
+                        break;
+                    case COLLINEAR:
+                        x = random.nextInt(areaSize);
+                        y = x;
+                        break;
+                    default:
+                        x = random.nextInt(areaSize);
+                        y = random.nextInt(areaSize);
+                }
+            } while (!occupied.add(((long) x << 32) | y));
+            sitesX[i] = x;
+            sitesY[i] = y;
+        }
+    }
+
+    private static int clamp(int value, int areaSize) {
+        return Math.max(0, Math.min(areaSize - 1, value));
+    }
+}
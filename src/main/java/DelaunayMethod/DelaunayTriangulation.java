@@ -0,0 +1,963 @@
+package DelaunayMethod;
+
+import HalfPlaneIntersectionOld.LocusAreas;
+import HalfPlaneIntersectionOld.ParametersOld;
+import HalfPlaneIntersectionOld.SiteOld;
+import Sites.ConvexCellClipper;
+import Sites.SiteStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ *  Delaunay triangulation built by incremental Bowyer-Watson algorithm. Sites are inserted in Hilbert curve order, so
+ * that the triangle containing the next site is found by a short walk from the previously created triangle, and the
+ * cavity of triangles whose circumcircles contain the site is found by search over neighbours and re-triangulated as
+ * a fan. Triangles are kept in primitive arrays with adjacency, construction is close to linear for real site sets.
+ * Four far-away guard sites are inserted the same way as in Fortune's method, so each real site is surrounded by
+ * triangles and its Voronoi cell is obtained as the dual: polygon of circumcenters of triangles around the site,
+ * clipped to the area. Neighbours of a site are its Delaunay neighbours: sites joined with it by an edge of the
+ * triangulation, including pairs on the hull whose shared cell border lies outside of the area.
+ *  Triangulation is dynamic: sites may be inserted, removed and moved one at a time. Insertion re-triangulates only
+ * the cavity of the new site, removal re-triangulates only the hole left by the site, so the cost of an edit depends
+ * on the amount of triangles around the site, not on the size of the diagram. After each edit sites whose cells have
+ * changed are available via {@link #getChangedSites()}.
+ */
+public class DelaunayTriangulation {
+    //  marker of absent neighbour triangle, absent vertex or absent site
+    private static final int NONE = -1;
+
+    //  coordinates of triangulation vertices: guard sites, vertices of the super triangle and sites
+    private double[] pointsX = new double[16];
+    private double[] pointsY = new double[16];
+    private int pointCount;
+
+    //  vertices released by removed sites that may be reused
+    private int[] freePoints = new int[16];
+    private int freePointCount;
+
+    //  site represented by each vertex, NONE for guards, super triangle and removed vertices
+    private int[] vertexSite = new int[16];
+
+    //  vertex of each site, NONE for removed sites; sites sharing coordinates share vertex
+    private int[] siteVertex = new int[16];
+
+    //  sites sharing a vertex form a list starting at the site representing it, NONE marks its ends
+    private int[] nextDuplicate = new int[16];
+    private int[] previousDuplicate = new int[16];
+    private int sitesValue;
+
+    //  borders of the area and the farthest allowed distance of a site from the area center (in Manhattan metric)
+    private final double width;
+    private final double height;
+    private final double siteReach;
+
+    //  triangles: vertices and neighbours opposite to each vertex, three entries per triangle
+    private int[] triangleVertices = new int[48];
+    private int[] triangleNeighbours = new int[48];
+    private boolean[] isTriangleAlive = new boolean[16];
+    private int triangleCount;
+
+    //  slots of removed triangles that may be reused
+    private int[] freeTriangles = new int[16];
+    private int freeCount;
+
+    //  scratch storage of insertion and removal, reused by each edit
+    private int[] cavity = new int[16];
+    private int[] visitMark = new int[16];
+    private int visitStamp;
+    private int[] boundaryEdges = new int[32];
+    private int[] fanByFirstVertex = new int[16];
+    private int[] hole = new int[16];
+
+    //  triangle created last, starting point of the walk
+    private int lastTriangle;
+
+    //  triangle touching each vertex, used for walking around a site
+    private int[] pointTriangle = new int[16];
+
+    //  adjacency of sites in compressed form: neighbours of site i are neighbours[neighbourStart[i] .. neighbourStart[i + 1]),
+    // rebuilt on demand after edits
+    private int[] neighbourStart;
+    private int[] neighbours;
+    private boolean isAdjacencyValid;
+
+    //  sites whose cells were changed by the last edit
+    private int[] changedSites = new int[0];
+
+    /**
+     * Constructor, triangulates sites lying inside of the area [0, width] x [0, height]
+     * @param sitesX X coordinates of sites
+     * @param sitesY Y coordinates of sites
+     * @param sitesValue how many sites there are
+     * @param width width of the area
+     * @param height height of the area
+     */
+    public DelaunayTriangulation(double[] sitesX, double[] sitesY, int sitesValue, double width, double height) {
+        if (sitesValue <= 0)
+            throw new IllegalArgumentException("Empty list of sites was transmitted");
+        this.width = width;
+        this.height = height;
+
+        //  guard sites form a diamond far enough from the area so that their bisectors never cross it
+        double centerX = width / 2;
+        double centerY = height / 2;
+        double guardDistance = 4.0 * (width + height) + 10;
+        for (int i = 0; i < sitesValue; i++)
+            guardDistance = Math.max(guardDistance, 4.0 * (Math.abs(sitesX[i] - centerX) + Math.abs(sitesY[i] - centerY)));
+        this.siteReach = guardDistance / 4;
+
+        //  super triangle contains everything with a wide margin
+        double superDistance = guardDistance * 16;
+        int superFirst = addPoint(centerX - superDistance * 2, centerY + superDistance);
+        addPoint(centerX + superDistance * 2, centerY + superDistance);
+        addPoint(centerX, centerY - superDistance * 2);
+        this.lastTriangle = addTriangle(superFirst, superFirst + 1, superFirst + 2, NONE, NONE, NONE);
+        if (orientation(superFirst, superFirst + 1, superFirst + 2) < 0)
+            swapOrientation(this.lastTriangle);
+        for (int k = 0; k < 3; k++)
+            this.pointTriangle[superFirst + k] = this.lastTriangle;
+
+        insert(addPoint(centerX, centerY - guardDistance));
+        insert(addPoint(centerX - guardDistance, centerY));
+        insert(addPoint(centerX + guardDistance, centerY));
+        insert(addPoint(centerX, centerY + guardDistance));
+
+        //  sites keep their indexes, but are inserted in Hilbert curve order
+        ensureSiteCapacity(sitesValue);
+        Arrays.fill(this.siteVertex, NONE);
+        this.sitesValue = sitesValue;
+        for (int site : hilbertOrder(sitesX, sitesY, sitesValue))
+            placeSite(site, sitesX[site], sitesY[site]);
+    }
+
+    /**
+     * Triangulate sites of the half-plane method, area is taken from {@link ParametersOld}
+     * @param siteOlds sites of the diagram
+     * @return triangulation, site indexes match positions in the list
+     */
+    public static DelaunayTriangulation fromSites(ArrayList<SiteOld> siteOlds) {
+        double[] x = new double[siteOlds.size()];
+        double[] y = new double[siteOlds.size()];
+        for (int i = 0; i < siteOlds.size(); i++) {
+            x[i] = siteOlds.get(i).getX();
+            y[i] = siteOlds.get(i).getY();
+        }
+        return new DelaunayTriangulation(x, y, siteOlds.size(), ParametersOld.xLimit, ParametersOld.yLimit);
+    }
+
+    /**
+     * Triangulate sites of the store, area is taken from {@link ParametersOld}; coordinates are read from the backing
+     * arrays of the store without copying
+     * @param siteStore sites of the diagram
+     * @return triangulation, site indexes match IDs in the store
+     */
+    public static DelaunayTriangulation fromStore(SiteStore siteStore) {
+        return new DelaunayTriangulation(siteStore.getSitesX(), siteStore.getSitesY(), siteStore.getSitesValue(),
+                ParametersOld.xLimit, ParametersOld.yLimit);
+    }
+
+    /**
+     * Triangulate interest points of the pixel-by-pixel method
+     * @param interestPointsX X coordinates of interest points
+     * @param interestPointsY Y coordinates of interest points
+     * @param interestPointsValue how many interest points there are
+     * @param imageSize side of the square image
+     * @return triangulation, site indexes match indexes of interest points
+     */
+    public static DelaunayTriangulation fromInterestPoints(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int imageSize) {
+        double[] x = new double[interestPointsValue];
+        double[] y = new double[interestPointsValue];
+        for (int i = 0; i < interestPointsValue; i++) {
+            x[i] = interestPointsX[i];
+            y[i] = interestPointsY[i];
+        }
+        return new DelaunayTriangulation(x, y, interestPointsValue, imageSize, imageSize);
+    }
+
+    /**
+     * Set Voronoi cell of each site as its locus and locus polygon, so that it may be painted as half-plane result
+     * @param siteOlds the same sites triangulation was built from
+     */
+    public void applyLoci(ArrayList<SiteOld> siteOlds) {
+        for (int i = 0; i < siteOlds.size(); i++)
+            applyLocus(siteOlds.get(i), i);
+    }
+
+    /**
+     * Set Voronoi cells of sites changed by the last edit as their loci, other sites are left untouched
+     * @param siteOlds sites of the diagram, positions in the list match site indexes
+     */
+    public void applyChangedLoci(ArrayList<SiteOld> siteOlds) {
+        for (int site : this.changedSites)
+            if (site < siteOlds.size())
+                applyLocus(siteOlds.get(site), site);
+    }
+
+    private void applyLocus(SiteOld siteOld, int site) {
+        double[] cell = getCell(site);
+        siteOld.setLocusPolygon(cell);
+        siteOld.setLocus(LocusAreas.toArea(cell));
+    }
+
+    //  editing
+
+    /**
+     * Insert new site, only triangles whose circumcircles contain the site are rebuilt
+     * @param x X coordinate of the site
+     * @param y Y coordinate of the site
+     * @return index of the new site
+     */
+    public int insertSite(double x, double y) {
+        checkReach(x, y);
+        int site = this.sitesValue;
+        ensureSiteCapacity(site + 1);
+        this.changedSites = placeSite(site, x, y);
+        this.sitesValue++;
+        return site;
+    }
+
+    /**
+     * Remove site, only triangles around the site are rebuilt
+     * @param site index of the site
+     */
+    public void removeSite(int site) {
+        checkSite(site);
+        this.changedSites = unplaceSite(site);
+    }
+
+    /**
+     * Move site to another position, it keeps its index
+     * @param site index of the site
+     * @param x new X coordinate of the site
+     * @param y new Y coordinate of the site
+     */
+    public void moveSite(int site, double x, double y) {
+        checkSite(site);
+        //  rejected move must leave the site where it was
+        checkReach(x, y);
+        int[] released = unplaceSite(site);
+        int[] placed = placeSite(site, x, y);
+
+        //  union of sites changed by both steps
+        int[] changed = Arrays.copyOf(released, released.length + placed.length);
+        System.arraycopy(placed, 0, changed, released.length, placed.length);
+        Arrays.sort(changed);
+        int size = 0;
+        for (int i = 0; i < changed.length; i++)
+            if (i == 0 || changed[i] != changed[i - 1])
+                changed[size++] = changed[i];
+        this.changedSites = Arrays.copyOf(changed, size);
+    }
+
+    /**
+     * Attach site to the triangulation
+     * @param site index of the site
+     * @param x X coordinate of the site
+     * @param y Y coordinate of the site
+     * @return sites whose cells have changed
+     */
+    private int[] placeSite(int site, double x, double y) {
+        checkReach(x, y);
+        this.isAdjacencyValid = false;
+
+        int vertex = addPoint(x, y);
+        int present = insert(vertex);
+        if (present != vertex) {
+            //  the same coordinates are already taken, site shares vertex and its cell with the site holding it
+            releasePoint(vertex);
+            this.siteVertex[site] = present;
+            int representative = this.vertexSite[present];
+            int next = this.nextDuplicate[representative];
+            this.nextDuplicate[site] = next;
+            this.previousDuplicate[site] = representative;
+            if (next != NONE)
+                this.previousDuplicate[next] = site;
+            this.nextDuplicate[representative] = site;
+            return new int[0];
+        }
+
+        this.vertexSite[vertex] = site;
+        this.siteVertex[site] = vertex;
+        this.nextDuplicate[site] = NONE;
+        this.previousDuplicate[site] = NONE;
+        int[] changed = neighbourSites(vertex, true);
+        changed[changed.length - 1] = site;
+        return changed;
+    }
+
+    /**
+     * Detach site from the triangulation
+     * @param site index of the site
+     * @return sites whose cells have changed
+     */
+    private int[] unplaceSite(int site) {
+        this.isAdjacencyValid = false;
+        int vertex = this.siteVertex[site];
+        this.siteVertex[site] = NONE;
+        int previous = this.previousDuplicate[site];
+        int next = this.nextDuplicate[site];
+        if (previous != NONE)
+            this.nextDuplicate[previous] = next;
+        if (next != NONE)
+            this.previousDuplicate[next] = previous;
+
+        //  site shared vertex with another site, so that the vertex stays
+        if (this.vertexSite[vertex] != site)
+            return new int[0];
+        if (next != NONE) {
+            this.vertexSite[vertex] = next;
+            return new int[]{next};
+        }
+
+        int[] changed = neighbourSites(vertex, false);
+        removeVertex(vertex);
+        releasePoint(vertex);
+        return changed;
+    }
+
+    /**
+     * check that site at the position stays inside of guard sites, before any state is changed
+     * @param x X coordinate of the site
+     * @param y Y coordinate of the site
+     */
+    private void checkReach(double x, double y) {
+        if (Math.abs(x - this.width / 2) + Math.abs(y - this.height / 2) > this.siteReach)
+            throw new IllegalArgumentException("Site (" + x + ", " + y + ") is too far from the area");
+    }
+
+    private void checkSite(int site) {
+        if (site < 0 || site >= this.sitesValue || this.siteVertex[site] == NONE)
+            throw new IllegalArgumentException("Site " + site + " is not present in triangulation");
+    }
+
+    //  Voronoi cells and neighbours
+
+    /**
+     * Find Voronoi cell of the site as polygon of circumcenters of triangles around it, clipped by the area
+     * @param site index of the site
+     * @return interleaved X and Y coordinates of cell vertices in counter-clockwise order
+     */
+    public double[] getCell(int site) {
+        checkSite(site);
+        int vertex = this.siteVertex[site];
+        int start = this.pointTriangle[vertex];
+        ConvexCellClipper clipper = new ConvexCellClipper();
+
+        //  collect circumcenters going counter-clockwise around the site
+        double[] polygon = new double[16];
+        int size = 0;
+        int triangle = start;
+        do {
+            if (size + 2 > polygon.length)
+                polygon = Arrays.copyOf(polygon, polygon.length * 2);
+            int a = this.triangleVertices[3 * triangle], b = this.triangleVertices[3 * triangle + 1], c = this.triangleVertices[3 * triangle + 2];
+            double d = 2 * (this.pointsX[a] * (this.pointsY[b] - this.pointsY[c]) + this.pointsX[b] * (this.pointsY[c] - this.pointsY[a])
+                    + this.pointsX[c] * (this.pointsY[a] - this.pointsY[b]));
+            double a2 = squaredLength(a), b2 = squaredLength(b), c2 = squaredLength(c);
+            polygon[size++] = (a2 * (this.pointsY[b] - this.pointsY[c]) + b2 * (this.pointsY[c] - this.pointsY[a]) + c2 * (this.pointsY[a] - this.pointsY[b])) / d;
+            polygon[size++] = (a2 * (this.pointsX[c] - this.pointsX[b]) + b2 * (this.pointsX[a] - this.pointsX[c]) + c2 * (this.pointsX[b] - this.pointsX[a])) / d;
+
+            triangle = nextAround(triangle, vertex);
+        } while (triangle != start);
+
+        clipper.load(Arrays.copyOf(polygon, size));
+        clipper.clipByHalfPlane(1, 0, 0);
+        clipper.clipByHalfPlane(-1, 0, this.width);
+        clipper.clipByHalfPlane(0, 1, 0);
+        clipper.clipByHalfPlane(0, -1, this.height);
+        return clipper.copyVertices();
+    }
+
+    /**
+     * Collect sites connected with the vertex by edges, found by walking around it
+     * @param vertex index of the vertex
+     * @param isSlotReserved true if one more free entry must be left at the end of the result
+     * @return indexes of neighbour sites
+     */
+    private int[] neighbourSites(int vertex, boolean isSlotReserved) {
+        int[] result = new int[8];
+        int size = 0;
+        int start = this.pointTriangle[vertex];
+        int triangle = start;
+        do {
+            int k = indexOf(triangle, vertex);
+            int site = this.vertexSite[this.triangleVertices[3 * triangle + (k + 1) % 3]];
+            if (site != NONE) {
+                if (size + 1 >= result.length)
+                    result = Arrays.copyOf(result, result.length * 2);
+                result[size++] = site;
+            }
+            triangle = nextAround(triangle, vertex);
+        } while (triangle != start);
+        return Arrays.copyOf(result, isSlotReserved ? size + 1 : size);
+    }
+
+    /**
+     * Rebuild compressed adjacency of sites after edits
+     */
+    private void buildAdjacency() {
+        int[] counts = new int[this.sitesValue + 1];
+        for (int triangle = 0; triangle < this.triangleCount; triangle++) {
+            if (!this.isTriangleAlive[triangle])
+                continue;
+            for (int k = 0; k < 3; k++) {
+                //  each edge is counted from both triangles sharing it, repeats are removed below
+                int site = this.vertexSite[this.triangleVertices[3 * triangle + k]];
+                int following = this.vertexSite[this.triangleVertices[3 * triangle + (k + 1) % 3]];
+                if (site != NONE && following != NONE) {
+                    counts[site + 1]++;
+                    counts[following + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < this.sitesValue; i++)
+            counts[i + 1] += counts[i];
+
+        int[] all = new int[counts[this.sitesValue]];
+        int[] fill = new int[this.sitesValue];
+        for (int triangle = 0; triangle < this.triangleCount; triangle++) {
+            if (!this.isTriangleAlive[triangle])
+                continue;
+            for (int k = 0; k < 3; k++) {
+                int site = this.vertexSite[this.triangleVertices[3 * triangle + k]];
+                int following = this.vertexSite[this.triangleVertices[3 * triangle + (k + 1) % 3]];
+                if (site != NONE && following != NONE) {
+                    all[counts[site] + fill[site]++] = following;
+                    all[counts[following] + fill[following]++] = site;
+                }
+            }
+        }
+
+        //  sort neighbours of each site and drop repeats
+        this.neighbourStart = new int[this.sitesValue + 1];
+        int size = 0;
+        for (int site = 0; site < this.sitesValue; site++) {
+            this.neighbourStart[site] = size;
+            int from = counts[site], to = from + fill[site];
+            Arrays.sort(all, from, to);
+            for (int i = from; i < to; i++)
+                if (i == from || all[i] != all[i - 1])
+                    all[size++] = all[i];
+        }
+        this.neighbourStart[this.sitesValue] = size;
+        this.neighbours = Arrays.copyOf(all, size);
+        this.isAdjacencyValid = true;
+    }
+
+    //  triangulation
+
+    /**
+     * Insert point into triangulation
+     * @param point index of the point
+     * @return index of the point holding the same coordinates if it is already present, the point itself otherwise
+     */
+    private int insert(int point) {
+        int containing = locate(point);
+
+        //  duplicate point does not change triangulation
+        for (int k = 0; k < 3; k++) {
+            int vertex = this.triangleVertices[3 * containing + k];
+            if (this.pointsX[vertex] == this.pointsX[point] && this.pointsY[vertex] == this.pointsY[point])
+                return vertex;
+        }
+
+        //  find cavity: connected triangles which circumcircle contains the point
+        this.visitStamp++;
+        ensureVisitCapacity();
+        int cavitySize = 0;
+        int boundarySize = 0;
+        this.cavity[cavitySize++] = containing;
+        this.visitMark[containing] = this.visitStamp;
+        for (int head = 0; head < cavitySize; head++) {
+            int triangle = this.cavity[head];
+            for (int k = 0; k < 3; k++) {
+                int neighbour = this.triangleNeighbours[3 * triangle + k];
+                if (neighbour != NONE && this.visitMark[neighbour] == this.visitStamp)
+                    continue;
+                if (neighbour != NONE && isInCircumcircle(neighbour, point)) {
+                    this.visitMark[neighbour] = this.visitStamp;
+                    if (cavitySize == this.cavity.length)
+                        this.cavity = Arrays.copyOf(this.cavity, cavitySize * 2);
+                    this.cavity[cavitySize++] = neighbour;
+                } else {
+                    //  edge opposite to vertex k is on the border of the cavity
+                    if (boundarySize + 2 > this.boundaryEdges.length)
+                        this.boundaryEdges = Arrays.copyOf(this.boundaryEdges, this.boundaryEdges.length * 2);
+                    this.boundaryEdges[boundarySize++] = triangle;
+                    this.boundaryEdges[boundarySize++] = k;
+                }
+            }
+        }
+
+        //  connect each border edge with the point, outer neighbours stay as they were
+        int firstCreated = NONE;
+        for (int i = 0; i < boundarySize; i += 2) {
+            int triangle = this.boundaryEdges[i];
+            int k = this.boundaryEdges[i + 1];
+            int a = this.triangleVertices[3 * triangle + (k + 1) % 3];
+            int b = this.triangleVertices[3 * triangle + (k + 2) % 3];
+            int outer = this.triangleNeighbours[3 * triangle + k];
+
+            int created = addTriangle(a, b, point, NONE, NONE, outer);
+            if (outer != NONE)
+                replaceNeighbour(outer, triangle, created);
+            this.fanByFirstVertex[a] = created;
+            this.pointTriangle[a] = created;
+            if (firstCreated == NONE)
+                firstCreated = created;
+        }
+
+        //  link triangles of the fan with each other: triangle (a, b, point) borders (b, c, point) over edge (b, point)
+        for (int i = 0; i < boundarySize; i += 2) {
+            int triangle = this.boundaryEdges[i];
+            int k = this.boundaryEdges[i + 1];
+            int a = this.triangleVertices[3 * triangle + (k + 1) % 3];
+            int b = this.triangleVertices[3 * triangle + (k + 2) % 3];
+            int created = this.fanByFirstVertex[a];
+            int following = this.fanByFirstVertex[b];
+            this.triangleNeighbours[3 * created] = following;
+            this.triangleNeighbours[3 * following + 1] = created;
+        }
+
+        //  remove cavity only now, so that its slots are not reused while the fan still reads them
+        for (int i = 0; i < cavitySize; i++)
+            freeTriangle(this.cavity[i]);
+
+        this.pointTriangle[point] = firstCreated;
+        this.lastTriangle = firstCreated;
+        return point;
+    }
+
+    /**
+     *  Remove vertex from triangulation: triangles around it are removed and the hole, polygon of its neighbours, is
+     * filled by ears whose circumcircles hold no other vertex of the hole, which keeps triangulation Delaunay
+     * @param vertex index of the vertex
+     */
+    private void removeVertex(int vertex) {
+        //  collect hole polygon counter-clockwise: for each triangle (vertex, a, b) around the vertex store a, outer
+        // triangle behind edge (a, b) and the triangle itself
+        int holeSize = 0;
+        int start = this.pointTriangle[vertex];
+        int triangle = start;
+        do {
+            if (holeSize + 3 > this.hole.length)
+                this.hole = Arrays.copyOf(this.hole, this.hole.length * 2);
+            int k = indexOf(triangle, vertex);
+            this.hole[holeSize++] = this.triangleVertices[3 * triangle + (k + 1) % 3];
+            this.hole[holeSize++] = this.triangleNeighbours[3 * triangle + k];
+            this.hole[holeSize++] = triangle;
+            triangle = nextAround(triangle, vertex);
+        } while (triangle != start);
+        int count = holeSize / 3;
+
+        //  remaining polygon as linked list of hole positions
+        int[] next = new int[count];
+        int[] previous = new int[count];
+        for (int i = 0; i < count; i++) {
+            next[i] = (i + 1) % count;
+            previous[i] = (i + count - 1) % count;
+        }
+
+        //  new triangles: three vertices each, neighbours are linked afterwards
+        int[] created = new int[count - 2];
+        int createdSize = 0;
+        int current = 0;
+        int remaining = count;
+        while (remaining > 3) {
+            int ear = findEar(current, next, previous, remaining, true);
+            if (ear == NONE)
+                ear = findEar(current, next, previous, remaining, false);
+            if (ear == NONE)
+                ear = current;
+            created[createdSize++] = addTriangle(this.hole[3 * previous[ear]], this.hole[3 * ear], this.hole[3 * next[ear]], NONE, NONE, NONE);
+            next[previous[ear]] = next[ear];
+            previous[next[ear]] = previous[ear];
+            current = next[ear];
+            remaining--;
+        }
+        created[createdSize++] = addTriangle(this.hole[3 * previous[current]], this.hole[3 * current], this.hole[3 * next[current]], NONE, NONE, NONE);
+
+        //  link new triangles with outer triangles over hole edges and with each other over diagonals
+        for (int i = 0; i < createdSize; i++) {
+            int t = created[i];
+            for (int k = 0; k < 3; k++) {
+                int a = this.triangleVertices[3 * t + (k + 1) % 3];
+                int b = this.triangleVertices[3 * t + (k + 2) % 3];
+                this.pointTriangle[a] = t;
+
+                int position = holePosition(a, count);
+                if (this.hole[3 * ((position + 1) % count)] == b) {
+                    int outer = this.hole[3 * position + 1];
+                    this.triangleNeighbours[3 * t + k] = outer;
+                    if (outer != NONE)
+                        replaceNeighbour(outer, this.hole[3 * position + 2], t);
+                    continue;
+                }
+                for (int j = 0; j < createdSize; j++)
+                    if (j != i && hasEdge(created[j], b, a))
+                        this.triangleNeighbours[3 * t + k] = created[j];
+            }
+        }
+
+        for (int i = 0; i < count; i++)
+            freeTriangle(this.hole[3 * i + 2]);
+        this.lastTriangle = created[0];
+    }
+
+    /**
+     * Find ear of the remaining hole polygon
+     * @param start position to start search from
+     * @param next following position of each position in the polygon
+     * @param previous preceding position of each position in the polygon
+     * @param remaining amount of positions left in the polygon
+     * @param isDelaunayRequired true if circumcircle of the ear must hold no other vertex, false if only triangle must
+     * @return position of the ear tip, NONE if there is no such ear
+     */
+    private int findEar(int start, int[] next, int[] previous, int remaining, boolean isDelaunayRequired) {
+        int position = start;
+        for (int i = 0; i < remaining; i++, position = next[position]) {
+            int a = this.hole[3 * previous[position]], b = this.hole[3 * position], c = this.hole[3 * next[position]];
+            if (orientation(a, b, c) <= 0)
+                continue;
+
+            boolean isEar = true;
+            for (int other = next[next[position]]; other != previous[position] && isEar; other = next[other]) {
+                int d = this.hole[3 * other];
+                isEar = isDelaunayRequired
+                        ? !isInCircumcircle(a, b, c, d)
+                        : orientation(a, b, d) < 0 || orientation(b, c, d) < 0 || orientation(c, a, d) < 0;
+            }
+            if (isEar)
+                return position;
+        }
+        return NONE;
+    }
+
+    private int holePosition(int vertex, int count) {
+        for (int i = 0; i < count; i++)
+            if (this.hole[3 * i] == vertex)
+                return i;
+        return NONE;
+    }
+
+    private boolean hasEdge(int triangle, int a, int b) {
+        for (int k = 0; k < 3; k++)
+            if (this.triangleVertices[3 * triangle + k] == a && this.triangleVertices[3 * triangle + (k + 1) % 3] == b)
+                return true;
+        return false;
+    }
+
+    /**
+     * Find triangle containing the point by walking from the last created triangle towards the point
+     * @param point index of the point
+     * @return index of the triangle
+     */
+    private int locate(int point) {
+        int triangle = this.lastTriangle;
+        int rotation = 0;
+        for (int steps = 0; steps < this.triangleCount * 3 + 3; steps++) {
+            boolean isMoved = false;
+
+            //  start checking edges from different position each time, so that walk never cycles
+            rotation = (rotation + 1) % 3;
+            for (int i = 0; i < 3 && !isMoved; i++) {
+                int k = (i + rotation) % 3;
+                int a = this.triangleVertices[3 * triangle + (k + 1) % 3];
+                int b = this.triangleVertices[3 * triangle + (k + 2) % 3];
+                if (orientation(a, b, point) < 0 && this.triangleNeighbours[3 * triangle + k] != NONE) {
+                    triangle = this.triangleNeighbours[3 * triangle + k];
+                    isMoved = true;
+                }
+            }
+            if (!isMoved)
+                return triangle;
+        }
+
+        //  walk failed because of rounding, fall back to checking every triangle
+        for (int candidate = 0; candidate < this.triangleCount; candidate++) {
+            if (!this.isTriangleAlive[candidate])
+                continue;
+            int a = this.triangleVertices[3 * candidate], b = this.triangleVertices[3 * candidate + 1], c = this.triangleVertices[3 * candidate + 2];
+            if (orientation(a, b, point) >= 0 && orientation(b, c, point) >= 0 && orientation(c, a, point) >= 0)
+                return candidate;
+        }
+        return triangle;
+    }
+
+    /**
+     * Next triangle counter-clockwise around the vertex, it shares the edge from the vertex to the last vertex of
+     * this triangle
+     */
+    private int nextAround(int triangle, int vertex) {
+        return this.triangleNeighbours[3 * triangle + (indexOf(triangle, vertex) + 1) % 3];
+    }
+
+    /**
+     * Order sites along Hilbert curve, so that consecutive insertions are close to each other
+     * @return order of site indexes
+     */
+    private int[] hilbertOrder(double[] sitesX, double[] sitesY, int sitesValue) {
+        long[] keys = new long[sitesValue];
+        for (int i = 0; i < sitesValue; i++) {
+            int x = (int) Math.max(0, Math.min(65535, sitesX[i] / Math.max(this.width, 1) * 65535));
+            int y = (int) Math.max(0, Math.min(65535, sitesY[i] / Math.max(this.height, 1) * 65535));
+            keys[i] = ((long) hilbertIndex(x, y) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[sitesValue];
+        for (int i = 0; i < sitesValue; i++)
+            order[i] = (int) keys[i];
+        return order;
+    }
+
+    /**
+     * Distance along Hilbert curve of order 16 to the cell
+     */
+    private static int hilbertIndex(int x, int y) {
+        int index = 0;
+        for (int s = 1 << 15; s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+        return index;
+    }
+
+    //  geometric predicates
+
+    private double orientation(int a, int b, int c) {
+        return (this.pointsX[b] - this.pointsX[a]) * (this.pointsY[c] - this.pointsY[a])
+                - (this.pointsY[b] - this.pointsY[a]) * (this.pointsX[c] - this.pointsX[a]);
+    }
+
+    private boolean isInCircumcircle(int triangle, int point) {
+        return isInCircumcircle(this.triangleVertices[3 * triangle], this.triangleVertices[3 * triangle + 1],
+                this.triangleVertices[3 * triangle + 2], point);
+    }
+
+    /**
+     * @return true if point lies strictly inside of the circle passing through counter-clockwise vertices a, b, c
+     */
+    private boolean isInCircumcircle(int a, int b, int c, int point) {
+        double adx = this.pointsX[a] - this.pointsX[point], ady = this.pointsY[a] - this.pointsY[point];
+        double bdx = this.pointsX[b] - this.pointsX[point], bdy = this.pointsY[b] - this.pointsY[point];
+        double cdx = this.pointsX[c] - this.pointsX[point], cdy = this.pointsY[c] - this.pointsY[point];
+        double determinant = (adx * adx + ady * ady) * (bdx * cdy - cdx * bdy)
+                - (bdx * bdx + bdy * bdy) * (adx * cdy - cdx * ady)
+                + (cdx * cdx + cdy * cdy) * (adx * bdy - bdx * ady);
+        return determinant > 0;
+    }
+
+    private double squaredLength(int point) {
+        return this.pointsX[point] * this.pointsX[point] + this.pointsY[point] * this.pointsY[point];
+    }
+
+    //  storage
+
+    private int addPoint(double x, double y) {
+        if (this.freePointCount > 0) {
+            int point = this.freePoints[--this.freePointCount];
+            this.pointsX[point] = x;
+            this.pointsY[point] = y;
+            return point;
+        }
+        if (this.pointCount == this.pointsX.length) {
+            int capacity = this.pointCount * 2;
+            this.pointsX = Arrays.copyOf(this.pointsX, capacity);
+            this.pointsY = Arrays.copyOf(this.pointsY, capacity);
+            this.vertexSite = Arrays.copyOf(this.vertexSite, capacity);
+            this.pointTriangle = Arrays.copyOf(this.pointTriangle, capacity);
+            this.fanByFirstVertex = Arrays.copyOf(this.fanByFirstVertex, capacity);
+        }
+        this.pointsX[this.pointCount] = x;
+        this.pointsY[this.pointCount] = y;
+        this.vertexSite[this.pointCount] = NONE;
+        return this.pointCount++;
+    }
+
+    private void releasePoint(int point) {
+        this.vertexSite[point] = NONE;
+        if (this.freePointCount == this.freePoints.length)
+            this.freePoints = Arrays.copyOf(this.freePoints, this.freePointCount * 2);
+        this.freePoints[this.freePointCount++] = point;
+    }
+
+    private void ensureSiteCapacity(int sitesValue) {
+        if (this.siteVertex.length < sitesValue) {
+            int oldLength = this.siteVertex.length;
+            this.siteVertex = Arrays.copyOf(this.siteVertex, Math.max(sitesValue, oldLength * 2));
+            Arrays.fill(this.siteVertex, oldLength, this.siteVertex.length, NONE);
+            this.nextDuplicate = Arrays.copyOf(this.nextDuplicate, this.siteVertex.length);
+            this.previousDuplicate = Arrays.copyOf(this.previousDuplicate, this.siteVertex.length);
+        }
+    }
+
+    private int addTriangle(int a, int b, int c, int oppositeA, int oppositeB, int oppositeC) {
+        int triangle;
+        if (this.freeCount > 0)
+            triangle = this.freeTriangles[--this.freeCount];
+        else {
+            triangle = this.triangleCount++;
+            if (triangle == this.isTriangleAlive.length) {
+                this.triangleVertices = Arrays.copyOf(this.triangleVertices, this.triangleVertices.length * 2);
+                this.triangleNeighbours = Arrays.copyOf(this.triangleNeighbours, this.triangleNeighbours.length * 2);
+                this.isTriangleAlive = Arrays.copyOf(this.isTriangleAlive, this.isTriangleAlive.length * 2);
+            }
+        }
+        this.triangleVertices[3 * triangle] = a;
+        this.triangleVertices[3 * triangle + 1] = b;
+        this.triangleVertices[3 * triangle + 2] = c;
+        this.triangleNeighbours[3 * triangle] = oppositeA;
+        this.triangleNeighbours[3 * triangle + 1] = oppositeB;
+        this.triangleNeighbours[3 * triangle + 2] = oppositeC;
+        this.isTriangleAlive[triangle] = true;
+        return triangle;
+    }
+
+    private void freeTriangle(int triangle) {
+        this.isTriangleAlive[triangle] = false;
+        if (this.freeCount == this.freeTriangles.length)
+            this.freeTriangles = Arrays.copyOf(this.freeTriangles, this.freeCount * 2);
+        this.freeTriangles[this.freeCount++] = triangle;
+    }
+
+    private void swapOrientation(int triangle) {
+        int swap = this.triangleVertices[3 * triangle + 1];
+        this.triangleVertices[3 * triangle + 1] = this.triangleVertices[3 * triangle + 2];
+        this.triangleVertices[3 * triangle + 2] = swap;
+    }
+
+    private void replaceNeighbour(int triangle, int oldNeighbour, int newNeighbour) {
+        for (int k = 0; k < 3; k++)
+            if (this.triangleNeighbours[3 * triangle + k] == oldNeighbour)
+                this.triangleNeighbours[3 * triangle + k] = newNeighbour;
+    }
+
+    private int indexOf(int triangle, int vertex) {
+        return this.triangleVertices[3 * triangle] == vertex ? 0 : this.triangleVertices[3 * triangle + 1] == vertex ? 1 : 2;
+    }
+
+    private void ensureVisitCapacity() {
+        if (this.visitMark.length < this.isTriangleAlive.length)
+            this.visitMark = Arrays.copyOf(this.visitMark, this.isTriangleAlive.length);
+    }
+
+    //  getters
+
+    /**
+     * @return amount of site indexes issued so far, including removed sites
+     */
+    public int getSitesValue() {
+        return sitesValue;
+    }
+
+    /**
+     * @param site index of the site
+     * @return true if site is present in triangulation
+     */
+    public boolean isSitePresent(int site) {
+        return site >= 0 && site < this.sitesValue && this.siteVertex[site] != NONE;
+    }
+
+    /**
+     * @return sites whose cells were changed by the last insertion, removal or move
+     */
+    public int[] getChangedSites() {
+        return changedSites.clone();
+    }
+
+    /**
+     * @param site index of the site
+     * @return amount of Delaunay neighbours of the site
+     */
+    public int getNeighbourCount(int site) {
+        checkSite(site);
+        if (!this.isAdjacencyValid)
+            buildAdjacency();
+        int representative = this.vertexSite[this.siteVertex[site]];
+        return this.neighbourStart[representative + 1] - this.neighbourStart[representative];
+    }
+
+    /**
+     * @param site index of the site
+     * @param k position of the neighbour, from 0 to neighbour count exclusive
+     * @return index of k-th neighbour of the site, sites sharing coordinates are represented by one of them
+     */
+    public int getNeighbour(int site, int k) {
+        checkSite(site);
+        if (!this.isAdjacencyValid)
+            buildAdjacency();
+        int representative = this.vertexSite[this.siteVertex[site]];
+        int count = this.neighbourStart[representative + 1] - this.neighbourStart[representative];
+        if (k < 0 || k >= count)
+            throw new IllegalArgumentException("Site " + site + " has " + count + " neighbours, got position " + k);
+        return this.neighbours[this.neighbourStart[representative] + k];
+    }
+
+    /**
+     * Neighbours found by walking around the site, so that no rebuild of adjacency is required after edits
+     * @param site index of the site
+     * @return indexes of all neighbours of the site in ascending order
+     */
+    public int[] getNeighbours(int site) {
+        checkSite(site);
+        int[] result = neighbourSites(this.siteVertex[site], false);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Neighbours found by walking around the site, written into given array so that nothing is allocated
+     * @param site index of the site
+     * @param output array receiving indexes of neighbours in counter-clockwise order
+     * @return amount of neighbours, if it exceeds output length then only part of them was written
+     */
+    public int getNeighbours(int site, int[] output) {
+        checkSite(site);
+        int vertex = this.siteVertex[site];
+        int size = 0;
+        int start = this.pointTriangle[vertex];
+        int triangle = start;
+        do {
+            int neighbour = this.vertexSite[this.triangleVertices[3 * triangle + (indexOf(triangle, vertex) + 1) % 3]];
+            if (neighbour != NONE) {
+                if (size < output.length)
+                    output[size] = neighbour;
+                size++;
+            }
+            triangle = nextAround(triangle, vertex);
+        } while (triangle != start);
+        return size;
+    }
+
+    /**
+     * @return vertices of triangles formed only by sites, three site indexes per triangle
+     */
+    public int[] getTriangles() {
+        int[] triangles = new int[this.triangleCount * 3];
+        int size = 0;
+        for (int triangle = 0; triangle < this.triangleCount; triangle++) {
+            if (!this.isTriangleAlive[triangle])
+                continue;
+            int a = this.vertexSite[this.triangleVertices[3 * triangle]];
+            int b = this.vertexSite[this.triangleVertices[3 * triangle + 1]];
+            int c = this.vertexSite[this.triangleVertices[3 * triangle + 2]];
+            if (a != NONE && b != NONE && c != NONE) {
+                triangles[size++] = a;
+                triangles[size++] = b;
+                triangles[size++] = c;
+            }
+        }
+        return Arrays.copyOf(triangles, size);
+    }
+}
@@ -0,0 +1,496 @@
+package FortuneMethod;
+
+import HalfPlaneIntersectionOld.LocusAreas;
+import HalfPlaneIntersectionOld.ParametersOld;
+import HalfPlaneIntersectionOld.SiteOld;
+import Sites.ConvexCellClipper;
+import Sites.SiteStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ *  Voronoi diagram built by Fortune's sweep-line algorithm in O(n log n). Sweep line moves along Y-axis, beach line of
+ * parabolic arcs is kept in a treap ordered by X, so that arc above each new site is found in O(log n), and vanishing
+ * arcs are found via circle events in priority queue. Four far-away guard sites are added around the analyzable area,
+ * they make every real cell bounded without changing any cell inside of the area, so each cell is exactly the convex
+ * polygon of Voronoi vertices met by its arcs. Cells are clipped to {@link ParametersOld} bounds and may be applied as
+ * loci of the sites, so that the same painting code used for the half-plane method draws them.
+ */
+public class VoronoiFortune {
+    //  tolerance used for comparing positions of events and vertices
+    private static final double EPSILON = 1e-9;
+
+    //  sites of the diagram, cells are stored in the same order, list is absent if diagram was built from store
+    private final ArrayList<SiteOld> siteOlds;
+    private final SiteStore siteStore;
+
+    //  polygon of each site cell as interleaved X and Y coordinates of its vertices in angular order
+    private final ArrayList<double[]> cells = new ArrayList<>();
+
+    //  coordinates of unique sites followed by guard sites
+    private double[] sitesX;
+    private double[] sitesY;
+
+    //  Voronoi vertices met by each unique site as interleaved X and Y coordinates
+    private double[][] siteVertices;
+    private int[] siteVerticesSize;
+
+    //  beach line root and events waiting for the sweep line
+    private Arc root;
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final Random priorities = new Random(0);
+
+    /**
+     * Constructor, builds cells of all sites
+     * @param siteOlds sites for which cells are required
+     */
+    public VoronoiFortune(ArrayList<SiteOld> siteOlds) {
+        this(siteOlds, SiteOld.toStore(siteOlds));
+    }
+
+    /**
+     * Constructor, builds cells of all sites of the store, cells are available via {@link #getCells()}
+     * @param siteStore sites for which cells are required, cell i belongs to site with ID i
+     */
+    public VoronoiFortune(SiteStore siteStore) {
+        this(null, siteStore);
+    }
+
+    private VoronoiFortune(ArrayList<SiteOld> siteOlds, SiteStore siteStore) {
+        if (siteStore.getSitesValue() == 0)
+            throw new IllegalArgumentException("Empty list of sites was transmitted");
+        this.siteOlds = siteOlds;
+        this.siteStore = siteStore;
+        build();
+    }
+
+    /**
+     * Set cell of each site as its locus and locus polygon, so that it may be painted the same way as half-plane result
+     */
+    public void applyLoci() {
+        if (this.siteOlds == null)
+            throw new IllegalStateException("Diagram was built from site store, there are no site objects to apply loci to");
+        for (int i = 0; i < this.siteOlds.size(); i++) {
+            this.siteOlds.get(i).setLocusPolygon(this.cells.get(i));
+            this.siteOlds.get(i).setLocus(LocusAreas.toArea(this.cells.get(i)));
+        }
+    }
+
+    /**
+     * Run sweep over all sites and form clipped cells
+     */
+    private void build() {
+        //  sites sharing coordinates share cell, so only the first of them takes part in the sweep
+        int sitesValue = this.siteStore.getSitesValue();
+        double[] storeX = this.siteStore.getSitesX();
+        double[] storeY = this.siteStore.getSitesY();
+        HashMap<Position, Integer> uniqueIndexes = new HashMap<>();
+        int[] uniqueOfSite = new int[sitesValue];
+        for (int i = 0; i < sitesValue; i++) {
+            Position key = new Position(storeX[i], storeY[i]);
+            Integer unique = uniqueIndexes.get(key);
+            if (unique == null) {
+                unique = uniqueIndexes.size();
+                uniqueIndexes.put(key, unique);
+            }
+            uniqueOfSite[i] = unique;
+        }
+
+        int uniqueSites = uniqueIndexes.size();
+        this.sitesX = new double[uniqueSites + 4];
+        this.sitesY = new double[uniqueSites + 4];
+        for (int i = 0; i < sitesValue; i++) {
+            this.sitesX[uniqueOfSite[i]] = storeX[i];
+            this.sitesY[uniqueOfSite[i]] = storeY[i];
+        }
+
+        //  guard sites form a diamond far enough from the area so that their bisectors never cross it
+        double centerX = ParametersOld.xLimit / 2.0;
+        double centerY = ParametersOld.yLimit / 2.0;
+        double guardDistance = 4.0 * (ParametersOld.xLimit + ParametersOld.yLimit) + 10;
+        for (int i = 0; i < sitesValue; i++)
+            guardDistance = Math.max(guardDistance, 4.0 * (Math.abs(storeX[i] - centerX) + Math.abs(storeY[i] - centerY)));
+        double[][] guards = {
+                {centerX, centerY - guardDistance}, {centerX - guardDistance, centerY},
+                {centerX + guardDistance, centerY}, {centerX, centerY + guardDistance}
+        };
+        for (int g = 0; g < 4; g++) {
+            this.sitesX[uniqueSites + g] = guards[g][0];
+            this.sitesY[uniqueSites + g] = guards[g][1];
+        }
+
+        this.siteVertices = new double[this.sitesX.length][];
+        this.siteVerticesSize = new int[this.sitesX.length];
+        for (int i = 0; i < this.sitesX.length; i++) {
+            this.siteVertices[i] = new double[12];
+            this.events.add(Event.site(i, this.sitesX[i], this.sitesY[i]));
+        }
+
+        //  sweep
+        while (!this.events.isEmpty()) {
+            Event event = this.events.poll();
+            if (event.arc == null)
+                handleSite(event.site);
+            else if (event.isValid)
+                handleCircle(event);
+        }
+
+        //  form and clip cells
+        ConvexCellClipper clipper = new ConvexCellClipper();
+        double[][] uniqueCells = new double[uniqueSites][];
+        for (int i = 0; i < uniqueSites; i++)
+            uniqueCells[i] = clipToArea(orderAround(i), clipper);
+        for (int i = 0; i < sitesValue; i++)
+            this.cells.add(uniqueCells[uniqueOfSite[i]]);
+    }
+
+    /**
+     * Site event: arc above new site is split in two and new arc is placed between them
+     * @param site index of the site
+     */
+    private void handleSite(int site) {
+        Arc arc = new Arc(site, this.priorities.nextInt());
+        if (this.root == null) {
+            this.root = arc;
+            return;
+        }
+
+        double sweep = this.sitesY[site];
+        Arc above = findArcAbove(this.sitesX[site], sweep);
+        invalidate(above);
+
+        //  above becomes left part, new arc and right part of above follow it
+        Arc rightPart = new Arc(above.site, this.priorities.nextInt());
+        insertAfter(above, arc);
+        insertAfter(arc, rightPart);
+
+        checkCircle(above, sweep);
+        checkCircle(rightPart, sweep);
+    }
+
+    /**
+     * Circle event: arc shrinks to a point which becomes Voronoi vertex of three sites
+     * @param event circle event
+     */
+    private void handleCircle(Event event) {
+        Arc arc = event.arc;
+        Arc left = arc.prev;
+        Arc right = arc.next;
+
+        addVertex(left.site, event.vertexX, event.vertexY);
+        addVertex(arc.site, event.vertexX, event.vertexY);
+        addVertex(right.site, event.vertexX, event.vertexY);
+
+        remove(arc);
+        invalidate(left);
+        invalidate(right);
+        checkCircle(left, event.y);
+        checkCircle(right, event.y);
+    }
+
+    /**
+     * Schedule circle event for the arc if breakpoints around it converge
+     * @param arc middle arc
+     * @param sweep current position of the sweep line
+     */
+    private void checkCircle(Arc arc, double sweep) {
+        Arc left = arc.prev;
+        Arc right = arc.next;
+        if (left == null || right == null || left.site == right.site)
+            return;
+
+        double ax = this.sitesX[left.site], ay = this.sitesY[left.site];
+        double bx = this.sitesX[arc.site], by = this.sitesY[arc.site];
+        double cx = this.sitesX[right.site], cy = this.sitesY[right.site];
+
+        //  breakpoints converge only if sites turn in this direction
+        double cross = (bx - ax) * (cy - by) - (by - ay) * (cx - bx);
+        if (cross <= 0)
+            return;
+
+        //  circumcenter of three sites
+        double d = 2 * (ax * (by - cy) + bx * (cy - ay) + cx * (ay - by));
+        double a2 = ax * ax + ay * ay, b2 = bx * bx + by * by, c2 = cx * cx + cy * cy;
+        double centerX = (a2 * (by - cy) + b2 * (cy - ay) + c2 * (ay - by)) / d;
+        double centerY = (a2 * (cx - bx) + b2 * (ax - cx) + c2 * (bx - ax)) / d;
+        double bottom = centerY + Math.hypot(ax - centerX, ay - centerY);
+        if (bottom < sweep - EPSILON * Math.max(1, Math.abs(sweep)))
+            return;
+
+        arc.circleEvent = Event.circle(arc, centerX, bottom, centerX, centerY);
+        this.events.add(arc.circleEvent);
+    }
+
+    private void invalidate(Arc arc) {
+        if (arc.circleEvent != null) {
+            arc.circleEvent.isValid = false;
+            arc.circleEvent = null;
+        }
+    }
+
+    /**
+     * Find arc of the beach line lying above the point of the sweep line
+     * @param x position on X-axis
+     * @param sweep position of the sweep line
+     * @return arc above the point
+     */
+    private Arc findArcAbove(double x, double sweep) {
+        Arc node = this.root;
+        while (true) {
+            if (node.prev != null && x < breakpoint(node.prev.site, node.site, sweep) && node.left != null)
+                node = node.left;
+            else if (node.next != null && x > breakpoint(node.site, node.next.site, sweep) && node.right != null)
+                node = node.right;
+            else
+                return node;
+        }
+    }
+
+    /**
+     * Find X coordinate of the intersection of two neighbouring arcs
+     * @param left site of the left arc
+     * @param right site of the right arc
+     * @param sweep position of the sweep line
+     * @return X coordinate of the breakpoint
+     */
+    private double breakpoint(int left, int right, double sweep) {
+        double ax = this.sitesX[left], ay = this.sitesY[left];
+        double bx = this.sitesX[right], by = this.sitesY[right];
+
+        //  parabola of site lying on the sweep line is a vertical ray
+        if (ay == sweep)
+            return ax;
+        if (by == sweep)
+            return bx;
+        if (ay == by)
+            return (ax + bx) / 2;
+
+        //  parabola of site f is y = ((x - fx)^2 + fy^2 - sweep^2) / da, solve equality of both parabolas
+        double da = 2 * (ay - sweep);
+        double db = 2 * (by - sweep);
+        double a = db - da;
+        double b = -2 * (db * ax - da * bx);
+        double c = db * (ax * ax + ay * ay - sweep * sweep) - da * (bx * bx + by * by - sweep * sweep);
+        double root = Math.sqrt(Math.max(0, b * b - 4 * a * c));
+        double first = (-b + root) / (2 * a);
+        double second = (-b - root) / (2 * a);
+
+        //  left arc is on top to the left of breakpoint: larger root if it is closer to sweep line, smaller otherwise
+        return ay > by ? Math.max(first, second) : Math.min(first, second);
+    }
+
+    private void addVertex(int site, double x, double y) {
+        if (this.siteVerticesSize[site] == this.siteVertices[site].length)
+            this.siteVertices[site] = Arrays.copyOf(this.siteVertices[site], this.siteVertices[site].length * 2);
+        this.siteVertices[site][this.siteVerticesSize[site]++] = x;
+        this.siteVertices[site][this.siteVerticesSize[site]++] = y;
+    }
+
+    /**
+     * Order vertices of the cell by angle around its site, coinciding vertices are merged
+     * @param site index of the site
+     * @return convex polygon of the cell
+     */
+    private double[] orderAround(int site) {
+        int count = this.siteVerticesSize[site] / 2;
+        double[] vertices = this.siteVertices[site];
+        Integer[] order = new Integer[count];
+        double[] angles = new double[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            angles[i] = Math.atan2(vertices[2 * i + 1] - this.sitesY[site], vertices[2 * i] - this.sitesX[site]);
+        }
+        Arrays.sort(order, (first, second) -> Double.compare(angles[first], angles[second]));
+
+        double[] polygon = new double[count * 2];
+        int size = 0;
+        for (int i : order) {
+            double x = vertices[2 * i], y = vertices[2 * i + 1];
+            if (size > 0 && Math.abs(polygon[size - 2] - x) < 1e-6 && Math.abs(polygon[size - 1] - y) < 1e-6)
+                continue;
+            polygon[size++] = x;
+            polygon[size++] = y;
+        }
+        if (size >= 4 && Math.abs(polygon[0] - polygon[size - 2]) < 1e-6 && Math.abs(polygon[1] - polygon[size - 1]) < 1e-6)
+            size -= 2;
+        return Arrays.copyOf(polygon, size);
+    }
+
+    /**
+     * Clip convex polygon by borders of the analyzable area
+     * @param polygon interleaved X and Y coordinates of polygon vertices
+     * @param clipper reusable clipper
+     * @return clipped polygon
+     */
+    private static double[] clipToArea(double[] polygon, ConvexCellClipper clipper) {
+        clipper.load(polygon);
+        clipper.clipByHalfPlane(1, 0, 0);
+        clipper.clipByHalfPlane(-1, 0, ParametersOld.xLimit);
+        clipper.clipByHalfPlane(0, 1, 0);
+        clipper.clipByHalfPlane(0, -1, ParametersOld.yLimit);
+        return clipper.copyVertices();
+    }
+
+    //  beach line treap, in-order traversal matches prev/next order of arcs
+
+    private void insertAfter(Arc node, Arc arc) {
+        arc.prev = node;
+        arc.next = node.next;
+        if (node.next != null)
+            node.next.prev = arc;
+        node.next = arc;
+
+        if (node.right == null) {
+            node.right = arc;
+            arc.parent = node;
+        } else {
+            Arc successor = node.right;
+            while (successor.left != null)
+                successor = successor.left;
+            successor.left = arc;
+            arc.parent = successor;
+        }
+        while (arc.parent != null && arc.priority > arc.parent.priority)
+            rotateUp(arc);
+    }
+
+    private void remove(Arc arc) {
+        while (arc.left != null || arc.right != null) {
+            Arc child;
+            if (arc.left == null)
+                child = arc.right;
+            else if (arc.right == null)
+                child = arc.left;
+            else
+                child = arc.left.priority > arc.right.priority ? arc.left : arc.right;
+            rotateUp(child);
+        }
+        if (arc.parent == null)
+            this.root = null;
+        else if (arc.parent.left == arc)
+            arc.parent.left = null;
+        else
+            arc.parent.right = null;
+
+        if (arc.prev != null)
+            arc.prev.next = arc.next;
+        if (arc.next != null)
+            arc.next.prev = arc.prev;
+    }
+
+    private void rotateUp(Arc arc) {
+        Arc parent = arc.parent;
+        Arc grandParent = parent.parent;
+        if (parent.left == arc) {
+            parent.left = arc.right;
+            if (arc.right != null)
+                arc.right.parent = parent;
+            arc.right = parent;
+        } else {
+            parent.right = arc.left;
+            if (arc.left != null)
+                arc.left.parent = parent;
+            arc.left = parent;
+        }
+        parent.parent = arc;
+        arc.parent = grandParent;
+        if (grandParent == null)
+            this.root = arc;
+        else if (grandParent.left == parent)
+            grandParent.left = arc;
+        else
+            grandParent.right = arc;
+    }
+
+    //  getters
+
+    /**
+     * @return polygon of each cell as interleaved X and Y coordinates, in the same order as sites
+     */
+    public ArrayList<double[]> getCells() {
+        return cells;
+    }
+
+    /**
+     * Parabolic arc of the beach line, also node of the treap
+     */
+    private static final class Arc {
+        private final int site;
+        private final int priority;
+        private Arc prev, next;
+        private Arc parent, left, right;
+        private Event circleEvent;
+
+        private Arc(int site, int priority) {
+            this.site = site;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Site event or circle event, ordered by position of the sweep line at which it happens
+     */
+    private static final class Event implements Comparable<Event> {
+        private final double x, y;
+        private final int site;
+        private final Arc arc;
+        private final double vertexX, vertexY;
+        private boolean isValid = true;
+
+        private Event(double x, double y, int site, Arc arc, double vertexX, double vertexY) {
+            this.x = x;
+            this.y = y;
+            this.site = site;
+            this.arc = arc;
+            this.vertexX = vertexX;
+            this.vertexY = vertexY;
+        }
+
+        private static Event site(int site, double x, double y) {
+            return new Event(x, y, site, null, x, y);
+        }
+
+        private static Event circle(Arc arc, double x, double y, double vertexX, double vertexY) {
+            return new Event(x, y, -1, arc, vertexX, vertexY);
+        }
+
+        @Override
+        public int compareTo(Event another) {
+            if (this.y != another.y)
+                return Double.compare(this.y, another.y);
+            if (this.x != another.x)
+                return Double.compare(this.x, another.x);
+            //  site events go before circle events at the same position
+            return Boolean.compare(this.arc != null, another.arc != null);
+        }
+    }
+
+    /**
+     * Exact coordinates of a site, key for finding sites sharing them
+     */
+    private static final class Position {
+        private final double x, y;
+
+        private Position(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object another) {
+            if (!(another instanceof Position))
+                return false;
+            Position position = (Position) another;
+            return Double.compare(this.x, position.x) == 0 && Double.compare(this.y, position.y) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Double.hashCode(this.x) + Double.hashCode(this.y);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package HalfPlaneIntersectionOld;
 
 import java.awt.geom.Line2D;
-import java.util.ArrayList;
 
 /**
  *  Custom class defining line with specification of two endpoints of this line. Supports definition of first-degree
@@ -10,14 +9,13 @@ import java.util.ArrayList;
  * Line2D from Swing
  */
 public class LineOld extends Line2D.Float {
+    //  half plane cut out of the area rectangle has at most this many vertices
+    public static final int MAX_HALF_PLANE_VERTICES = 5;
+
     //  ending points of the line
     private PointOld firstPointOld;
     private PointOld secondPointOld;
 
-    //  coefficients for equation of the line in the format: y = mx + b
-    private float m;
-    private float b;
-
     //  perpendicular of the line
     private LineOld perpendicular;
 
@@ -122,76 +120,107 @@ public class LineOld extends Line2D.Float {
     }
 
     /**
-     * Finds perpendicular of the line basing on first degree polynomial calculations.
+     * Finds perpendicular of the line limited by area, see {@link #clipBisectorByArea}
      * @return perpendicular of the line limited by area
      */
     public LineOld getPerpendicularByEquation() {
-        //  if line is horizontal, then get vertical perpendicular
-        if (firstPointOld.getY() == secondPointOld.getY()) {
-            PointOld middle = middleOfLine();
-            return new LineOld(
-                    new PointOld((float) middle.getX(), 0),
-                    new PointOld((float) middle.getX(), ParametersOld.yLimit)
-            );
-        }
-
-        //  if line is vertical, then get horizontal perpendicular
-        else if (firstPointOld.getX() == secondPointOld.getX()) {
-            PointOld middle = middleOfLine();
-            return new LineOld(
-                    new PointOld(0, (float) middle.getY()),
-                    new PointOld(ParametersOld.xLimit, (float) middle.getY())
-            );
-        }
-
-        //  storage for perpendicular endpoints
-        ArrayList<PointOld> perpendicularEndpoints = new ArrayList<>();
-
-        if (this.m == 0 && this.b == 0) {
-            //  find coefficient of the line, defining its "angle"
-            this.m = (float) ((secondPointOld.getY() - firstPointOld.getY()) /
-                    (secondPointOld.getX() - firstPointOld.getX()));
-            this.b = (float) (secondPointOld.getY() - this.m * secondPointOld.getX());
-        }
+        double[] endpoints = new double[4];
+        if (clipBisectorByArea(firstPointOld.getX(), firstPointOld.getY(), secondPointOld.getX(), secondPointOld.getY(),
+                ParametersOld.xLimit, ParametersOld.yLimit, endpoints) < 2)
+            throw new IllegalStateException("Perpendicular of " + this + " does not cross the area");
 
-        //  find equation of the perpendicular
-        double perpM = -1 / this.m;
-        PointOld middle = middleOfLine();
-        double perpB = middle.getY() - perpM * middle.getX();
-
-        //  check if there is perpendicular endpoint on the left border
-        double yValueAtXBorder = perpM * 0 + perpB;
-        if (yValueAtXBorder <= ParametersOld.yLimit && yValueAtXBorder >= 0) {
-            perpendicularEndpoints.add(new PointOld(0, (int) yValueAtXBorder));
-        }
-
-        //  check if it is on the right border
-        yValueAtXBorder = perpM * ParametersOld.xLimit + perpB;
-        if (yValueAtXBorder <= ParametersOld.yLimit && yValueAtXBorder >= 0) {
-            perpendicularEndpoints.add(new PointOld(ParametersOld.xLimit, (int) yValueAtXBorder));
-        }
+        //  return perpendicular line
+        return new LineOld((float) endpoints[0], (float) endpoints[1], (float) endpoints[2], (float) endpoints[3]);
+    }
 
-        //  check if it is on the top border
-        double xValueAtYBorder = 0;
-        if (perpendicularEndpoints.size() < 2) {
-            xValueAtYBorder = (0 - perpB) / perpM;
-            if (xValueAtYBorder <= ParametersOld.xLimit && xValueAtYBorder >= 0)
-                perpendicularEndpoints.add(new PointOld((int) xValueAtYBorder, 0));
+    /**
+     *  Find part of the area rectangle [0, xLimit] x [0, yLimit] which is closer to the first point than to the second
+     * one. Bisector is taken in homogeneous form a * x + b * y + c = 0 with (a, b) = first - second, so the kept side
+     * is a * x + b * y + c >= 0 and no slope is ever computed: corners of the rectangle are walked in clockwise
+     * direction, corners on the kept side are written out and crossing of the bisector is found on each edge whose
+     * ends lie strictly on different sides. Nothing is allocated.
+     * @param x1 X coordinate of the first point
+     * @param y1 Y coordinate of the first point
+     * @param x2 X coordinate of the second point
+     * @param y2 Y coordinate of the second point
+     * @param xLimit width of the area
+     * @param yLimit height of the area
+     * @param polygon destination for interleaved X and Y coordinates of vertices, at least 2 * MAX_HALF_PLANE_VERTICES long
+     * @return amount of written vertices, 0 if the whole area is closer to the second point
+     */
+    public static int clipAreaByBisector(double x1, double y1, double x2, double y2, double xLimit, double yLimit,
+                                         double[] polygon) {
+        double a = x1 - x2;
+        double b = y1 - y2;
+        double c = -(a * (x1 + x2) + b * (y1 + y2)) / 2;
+
+        int size = 0;
+        for (int corner = 0; corner < 4; corner++) {
+            double cornerX = cornerX(corner, xLimit);
+            double cornerY = cornerY(corner, yLimit);
+            double nextX = cornerX(corner + 1, xLimit);
+            double nextY = cornerY(corner + 1, yLimit);
+            double side = a * cornerX + b * cornerY + c;
+            double nextSide = a * nextX + b * nextY + c;
+            if (side >= 0) {
+                polygon[size++] = cornerX;
+                polygon[size++] = cornerY;
+            }
+            if ((side > 0 && nextSide < 0) || (side < 0 && nextSide > 0)) {
+                double t = side / (side - nextSide);
+                polygon[size++] = cornerX + t * (nextX - cornerX);
+                polygon[size++] = cornerY + t * (nextY - cornerY);
+            }
         }
+        return size / 2;
+    }
 
-        //  check if it is on the bottom border
-        if (perpendicularEndpoints.size() < 2) {
-            xValueAtYBorder = (ParametersOld.yLimit - perpB) / perpM;
-            if (xValueAtYBorder <= ParametersOld.xLimit && xValueAtYBorder >= 0)
-                perpendicularEndpoints.add(new PointOld((int) xValueAtYBorder, ParametersOld.yLimit));
+    /**
+     *  Find endpoints of bisector of two points limited by the area rectangle [0, xLimit] x [0, yLimit]. Bisector is
+     * taken in the same homogeneous form as in {@link #clipAreaByBisector}, endpoints are corners lying on it and
+     * crossings of edges whose ends lie strictly on different sides, so every orientation is handled the same way.
+     * @param x1 X coordinate of the first point
+     * @param y1 Y coordinate of the first point
+     * @param x2 X coordinate of the second point
+     * @param y2 Y coordinate of the second point
+     * @param xLimit width of the area
+     * @param yLimit height of the area
+     * @param endpoints destination for X and Y coordinates of both endpoints, at least 4 long
+     * @return amount of found endpoints, less than 2 if bisector does not cross the area
+     */
+    public static int clipBisectorByArea(double x1, double y1, double x2, double y2, double xLimit, double yLimit,
+                                         double[] endpoints) {
+        double a = x1 - x2;
+        double b = y1 - y2;
+        double c = -(a * (x1 + x2) + b * (y1 + y2)) / 2;
+
+        int size = 0;
+        for (int corner = 0; corner < 4 && size < 4; corner++) {
+            double cornerX = cornerX(corner, xLimit);
+            double cornerY = cornerY(corner, yLimit);
+            double nextX = cornerX(corner + 1, xLimit);
+            double nextY = cornerY(corner + 1, yLimit);
+            double side = a * cornerX + b * cornerY + c;
+            double nextSide = a * nextX + b * nextY + c;
+            if (side == 0) {
+                endpoints[size++] = cornerX;
+                endpoints[size++] = cornerY;
+            } else if ((side > 0 && nextSide < 0) || (side < 0 && nextSide > 0)) {
+                double t = side / (side - nextSide);
+                endpoints[size++] = cornerX + t * (nextX - cornerX);
+                endpoints[size++] = cornerY + t * (nextY - cornerY);
+            }
         }
+        return size / 2;
+    }
 
-        if (perpendicularEndpoints.size() == 0) {
-            System.out.println("somethings wrong!");
-        }
+    //  corners of the area in clockwise direction starting from top left one: (0, 0), (x, 0), (x, y), (0, y)
+    private static double cornerX(int corner, double xLimit) {
+        return ((corner + 1) & 2) != 0 ? xLimit : 0;
+    }
 
-        //  return perpendicular line
-        return new LineOld(perpendicularEndpoints.get(0), perpendicularEndpoints.get(1));
+    private static double cornerY(int corner, double yLimit) {
+        return (corner & 2) != 0 ? yLimit : 0;
     }
 
     /**
@@ -204,17 +233,24 @@ public class LineOld extends Line2D.Float {
         if (innerHorizontalAndVerticalContainsCheck(pointOld))
             return true;
 
-        //  if m and b coefficients have not been calculated -> calculate them
-        if (this.m == 0 && this.b == 0) {
-            this.m = (float) ((secondPointOld.getY() - firstPointOld.getY()) / (secondPointOld.getX() - firstPointOld.getX()));
-            this.b = (float) (secondPointOld.getY() - this.m * secondPointOld.getX());
-        }
+        //  coefficients are computed on each call instead of being cached in fields, so that lines shared between
+        // threads (borders of the area) are never written
+        float m = slope();
+        float b = (float) (secondPointOld.getY() - m * secondPointOld.getX());
 
         // check if point is on the line
-        PointOld checkPointOld = new PointOld((float) pointOld.getX(), (float) (this.m * pointOld.getX() + this.b));
+        PointOld checkPointOld = new PointOld((float) pointOld.getX(), (float) (m * pointOld.getX() + b));
         return checkPointOld.isEqual(pointOld);
     }
 
+    /**
+     * Find coefficient m of equation of the line in the format: y = mx + b
+     * @return slope of the line
+     */
+    private float slope() {
+        return (float) ((secondPointOld.getY() - firstPointOld.getY()) / (secondPointOld.getX() - firstPointOld.getX()));
+    }
+
     /**
      * Checks presence of point on the line if the line is horizontal or vertical
      * @param pointOld point presence of which is requested to check
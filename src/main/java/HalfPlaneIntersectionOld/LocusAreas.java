@@ -0,0 +1,69 @@
+package HalfPlaneIntersectionOld;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+
+/**
+ * Conversion between locus polygons of {@link Sites.ConvexCellClipper} and Area objects used for painting loci
+ */
+public final class LocusAreas {
+    private LocusAreas() {
+    }
+
+    /**
+     * Convert polygon into area, so that it may be painted or combined with another areas
+     * @param polygon interleaved X and Y coordinates of polygon vertices
+     * @return area enclosed by polygon
+     */
+    public static Area toArea(double[] polygon) {
+        Path2D.Double path = new Path2D.Double();
+        for (int i = 0; i < polygon.length; i += 2) {
+            if (i == 0)
+                path.moveTo(polygon[i], polygon[i + 1]);
+            else
+                path.lineTo(polygon[i], polygon[i + 1]);
+        }
+        path.closePath();
+        return new Area(path);
+    }
+
+    /**
+     *  Convert convex area back into polygon. Area built from rounded half planes may hold tiny slivers besides the
+     * main outline, so the outline with the largest area is taken
+     * @param area convex area, for example locus found by intersection of half planes
+     * @return interleaved X and Y coordinates of polygon vertices, empty for empty area
+     */
+    public static double[] fromArea(Area area) {
+        double[] best = new double[0];
+        double bestArea = -1;
+        double[] outline = new double[16];
+        int size = 0;
+        double[] segment = new double[6];
+        for (PathIterator iterator = area.getPathIterator(null); !iterator.isDone(); iterator.next()) {
+            int type = iterator.currentSegment(segment);
+            if (type == PathIterator.SEG_MOVETO)
+                size = 0;
+            if (type == PathIterator.SEG_CLOSE) {
+                //  shoelace formula
+                double doubledArea = 0;
+                for (int i = 0; i < size; i += 2) {
+                    int j = i + 2 == size ? 0 : i + 2;
+                    doubledArea += outline[i] * outline[j + 1] - outline[j] * outline[i + 1];
+                }
+                if (Math.abs(doubledArea) > bestArea) {
+                    bestArea = Math.abs(doubledArea);
+                    best = Arrays.copyOf(outline, size);
+                }
+                size = 0;
+                continue;
+            }
+            if (size + 2 > outline.length)
+                outline = Arrays.copyOf(outline, outline.length * 2);
+            outline[size++] = segment[0];
+            outline[size++] = segment[1];
+        }
+        return best;
+    }
+}
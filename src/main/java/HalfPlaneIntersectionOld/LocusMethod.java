@@ -0,0 +1,185 @@
+package HalfPlaneIntersectionOld;
+
+import DelaunayMethod.DelaunayTriangulation;
+import FortuneMethod.VoronoiFortune;
+import Metrics.Counter;
+import Metrics.Metrics;
+import Metrics.Phase;
+import PixelByPixelMethod.ParallelTasks;
+import Sites.ConvexCellClipper;
+import Sites.SiteGrid;
+import Sites.SiteStore;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Approaches available for estimating locus of each site
+ */
+public enum LocusMethod {
+    //  intersection of Area half planes cut out by bisectors, see SiteOld.findLocus
+    HALF_PLANE_AREA,
+
+    //  clipping of convex polygon by bisectors in primitive buffers, see SiteOld.findLocusPolygon
+    HALF_PLANE_POLYGON,
+
+    //  the same clipping by bisectors with nearby sites only, found via SiteGrid
+    HALF_PLANE_PRUNED,
+
+    //  Fortune's sweep line over all sites at once, see FortuneMethod.VoronoiFortune
+    FORTUNE,
+
+    //  dual of Bowyer-Watson Delaunay triangulation, see DelaunayMethod.DelaunayTriangulation
+    DELAUNAY;
+
+    /**
+     * Find locus of each site with this approach, no window is required for it
+     * @param siteOlds all sites of the area, their locus is set in place
+     */
+    public void findLoci(ArrayList<SiteOld> siteOlds) {
+        findLoci(siteOlds, null);
+    }
+
+    /**
+     *  Find locus of each site with this approach, half plane approaches split sites into chunks computed in parallel:
+     * locus of each site depends only on coordinates of all sites, each chunk uses its own clipper and writes only
+     * locus of its own sites. Sweep and triangulation approaches work over all sites at once and ignore the executor.
+     * @param siteOlds all sites of the area, their locus is set in place, coordinates must not be changed meanwhile
+     * @param executor executor that will run chunks of sites, null to find all loci in the calling thread
+     */
+    public void findLoci(ArrayList<SiteOld> siteOlds, ExecutorService executor) {
+        long startNanos = Metrics.startPhase();
+        long clipsValue = 0;
+        switch (this) {
+            case HALF_PLANE_AREA:
+                clipsValue = runChunks(executor, siteOlds.size(), (fromSite, toSite) -> {
+                    long chunkClipsValue = 0;
+                    for (int i = fromSite; i < toSite; i++)
+                        chunkClipsValue += siteOlds.get(i).findLocus(siteOlds);
+                    return chunkClipsValue;
+                });
+                break;
+            case HALF_PLANE_POLYGON:
+                clipsValue = runChunks(executor, siteOlds.size(), (fromSite, toSite) -> {
+                    ConvexCellClipper clipper = new ConvexCellClipper();
+                    for (int i = fromSite; i < toSite; i++)
+                        siteOlds.get(i).findLocusPolygon(siteOlds, clipper);
+                    return clipper.getClipsValue();
+                });
+                break;
+            case HALF_PLANE_PRUNED:
+                SiteGrid siteGrid = createSiteGrid(SiteOld.toStore(siteOlds));
+                clipsValue = runChunks(executor, siteOlds.size(), (fromSite, toSite) -> {
+                    ConvexCellClipper clipper = new ConvexCellClipper();
+                    for (int i = fromSite; i < toSite; i++)
+                        siteOlds.get(i).findLocusPolygon(siteGrid, i, clipper);
+                    return clipper.getClipsValue();
+                });
+                break;
+            case FORTUNE:
+                new VoronoiFortune(siteOlds).applyLoci();
+                break;
+            case DELAUNAY:
+                DelaunayTriangulation.fromSites(siteOlds).applyLoci(siteOlds);
+                break;
+        }
+        Metrics.endPhase(Phase.CLIPPING, startNanos);
+        Metrics.count(Counter.HALF_PLANE_CLIPS, clipsValue);
+    }
+
+    /**
+     * Find locus of each site of the store as convex polygon, no site objects are created except for Area approach
+     * which works only on them
+     * @param siteStore all sites of the area
+     * @return interleaved X and Y coordinates of locus vertices of each site, position in array matches site ID
+     */
+    public double[][] findLocusPolygons(SiteStore siteStore) {
+        return findLocusPolygons(siteStore, null);
+    }
+
+    /**
+     * Find locus of each site of the store as convex polygon, half plane approaches compute chunks of sites in parallel
+     * @param siteStore all sites of the area, must not be changed meanwhile
+     * @param executor executor that will run chunks of sites, null to find all loci in the calling thread
+     * @return interleaved X and Y coordinates of locus vertices of each site, position in array matches site ID
+     */
+    public double[][] findLocusPolygons(SiteStore siteStore, ExecutorService executor) {
+        long startNanos = Metrics.startPhase();
+        long clipsValue = 0;
+        int sitesValue = siteStore.getSitesValue();
+        double[][] polygons = new double[sitesValue][];
+        switch (this) {
+            case HALF_PLANE_AREA:
+                ArrayList<SiteOld> siteOlds = SiteOld.fromStore(siteStore);
+                clipsValue = runChunks(executor, sitesValue, (fromSite, toSite) -> {
+                    long chunkClipsValue = 0;
+                    for (int i = fromSite; i < toSite; i++) {
+                        chunkClipsValue += siteOlds.get(i).findLocus(siteOlds);
+                        polygons[i] = LocusAreas.fromArea(siteOlds.get(i).getLocus());
+                    }
+                    return chunkClipsValue;
+                });
+                break;
+            case HALF_PLANE_POLYGON:
+                double[] sitesX = siteStore.getSitesX();
+                double[] sitesY = siteStore.getSitesY();
+                clipsValue = runChunks(executor, sitesValue, (fromSite, toSite) -> {
+                    ConvexCellClipper clipper = new ConvexCellClipper();
+                    for (int i = fromSite; i < toSite; i++) {
+                        clipper.reset(0, 0, ParametersOld.xLimit, ParametersOld.yLimit);
+                        //  sites with the same coordinates do not split area
+                        for (int j = 0; j < sitesValue && !clipper.isEmpty(); j++)
+                            if (sitesX[j] != sitesX[i] || sitesY[j] != sitesY[i])
+                                clipper.clipByBisector(sitesX[i], sitesY[i], sitesX[j], sitesY[j]);
+                        polygons[i] = clipper.copyVertices();
+                    }
+                    return clipper.getClipsValue();
+                });
+                break;
+            case HALF_PLANE_PRUNED:
+                SiteGrid siteGrid = createSiteGrid(siteStore);
+                clipsValue = runChunks(executor, sitesValue, (fromSite, toSite) -> {
+                    ConvexCellClipper clipper = new ConvexCellClipper();
+                    for (int i = fromSite; i < toSite; i++) {
+                        siteGrid.clipLocus(i, clipper);
+                        polygons[i] = clipper.copyVertices();
+                    }
+                    return clipper.getClipsValue();
+                });
+                break;
+            case FORTUNE:
+                new VoronoiFortune(siteStore).getCells().toArray(polygons);
+                break;
+            case DELAUNAY:
+                DelaunayTriangulation triangulation = DelaunayTriangulation.fromStore(siteStore);
+                for (int i = 0; i < sitesValue; i++)
+                    polygons[i] = triangulation.getCell(i);
+                break;
+        }
+        Metrics.endPhase(Phase.CLIPPING, startNanos);
+        Metrics.count(Counter.HALF_PLANE_CLIPS, clipsValue);
+        return polygons;
+    }
+
+    /**
+     * Create grid over sites of the store covering area of ParametersOld
+     * @param siteStore all sites of the area
+     * @return grid over copy of site coordinates
+     */
+    private static SiteGrid createSiteGrid(SiteStore siteStore) {
+        return new SiteGrid(siteStore.getSitesX(), siteStore.getSitesY(), siteStore.getSitesValue(),
+                ParametersOld.xLimit, ParametersOld.yLimit);
+    }
+
+    /**
+     * Split sites [0, sitesValue) into chunks and run action on each of them, waiting for all of them; several chunks
+     * go to each worker to balance the load, loci near borders are cheaper than inner ones
+     * @param executor executor that will run the chunks, null to run the whole range in the calling thread
+     * @param sitesValue amount of sites
+     * @param action action receiving first (inclusive) and last (exclusive) site of its chunk
+     * @return sum of clips counted by all chunks
+     */
+    private static long runChunks(ExecutorService executor, int sitesValue, ParallelTasks.RangeAction action) {
+        return ParallelTasks.sumRanges(executor, sitesValue, ParallelTasks.defaultBands(), action);
+    }
+}
@@ -3,8 +3,8 @@ package HalfPlaneIntersectionOld;
 //  class for storing application settings
 public class ParametersOld {
     //  displayable/analyzable area size in X and Y
-    public static short xLimit = 700;
-    public static short yLimit = 700;
+    public static final short xLimit = 700;
+    public static final short yLimit = 700;
 
     //  corners of the displayable/analyzable area
     public static final PointOld topLeftCorner = new PointOld(0, 0);
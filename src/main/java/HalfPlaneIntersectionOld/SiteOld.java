@@ -1,8 +1,13 @@
 package HalfPlaneIntersectionOld;
 
+import Sites.ConvexCellClipper;
+import Sites.SiteGrid;
+import Sites.SiteStore;
+
 import java.awt.*;
 
 import java.awt.geom.Area;
+import java.awt.geom.Path2D;
 import java.util.ArrayList;
 
 
@@ -19,17 +24,11 @@ public class SiteOld extends PointOld {
     //  locus - area each point of which is closer to this site than to any another one
     private Area locus;
 
-    //  borders of the reviewed area, common for all sites
-    private static final ArrayList<LineOld> borders = new ArrayList<>();
-    private static final Rectangle screenArea;
-    static {
-        //  form borders of the sector in clockwise direction
-        borders.add(new LineOld(ParametersOld.topLeftCorner, ParametersOld.topRightCorner));     //  top border
-        borders.add(new LineOld(ParametersOld.topRightCorner, ParametersOld.bottomRightCorner));   //  right border
-        borders.add(new LineOld(ParametersOld.bottomRightCorner, ParametersOld.bottomLeftCorner));   //  bottom border
-        borders.add(new LineOld(ParametersOld.bottomLeftCorner, ParametersOld.topLeftCorner));     //  left border
-        screenArea = new Rectangle(0, 0, ParametersOld.xLimit, ParametersOld.yLimit);
-    }
+    //  the same locus as convex polygon of interleaved X and Y coordinates, set by polygon-based estimation
+    private double[] locusPolygon;
+
+    //  reviewed area, common for all sites
+    private static final Rectangle screenArea = new Rectangle(0, 0, ParametersOld.xLimit, ParametersOld.yLimit);
 
     /**
      * Constructor, create site with coordinates, no color attached
@@ -51,117 +50,96 @@ public class SiteOld extends PointOld {
         this.color = color;
     }
 
+    /**
+     * Copy sites of the list into compact store, IDs match positions in the list, sites without color get black one
+     * @param siteOlds sites to copy
+     * @return store with the same sites
+     */
+    public static SiteStore toStore(ArrayList<SiteOld> siteOlds) {
+        SiteStore siteStore = new SiteStore(siteOlds.size());
+        for (SiteOld siteOld : siteOlds)
+            siteStore.add(siteOld.x, siteOld.y, siteOld.getColor() == null ? 0 : siteOld.getColor().getRGB() & 0xFFFFFF);
+        return siteStore;
+    }
+
+    /**
+     * Create site objects for code that still works with lists, for example for painting loci
+     * @param siteStore sites to copy
+     * @return list of sites, positions in the list match IDs
+     */
+    public static ArrayList<SiteOld> fromStore(SiteStore siteStore) {
+        ArrayList<SiteOld> siteOlds = new ArrayList<>(siteStore.getSitesValue());
+        for (int i = 0; i < siteStore.getSitesValue(); i++)
+            siteOlds.add(new SiteOld((float) siteStore.getX(i), (float) siteStore.getY(i), new Color(siteStore.getColor(i))));
+        return siteOlds;
+    }
+
     /**
      * Find locus area for this site
      * @param siteOlds array of all sites presented on this sector
+     * @return amount of half planes the locus was intersected with
      */
-    public void findLocus(ArrayList<SiteOld> siteOlds) {
+    public int findLocus(ArrayList<SiteOld> siteOlds) {
         locus = new Area(screenArea);
+        int clipsValue = 0;
+
+        //  half plane buffers are reused for all sites, only Area objects are created per half plane
+        double[] halfPlaneVertices = new double[2 * LineOld.MAX_HALF_PLANE_VERTICES];
+        Path2D.Double halfPlane = new Path2D.Double();
 
         //  iterate through each site
         for (SiteOld anotherSiteOld : siteOlds) {
-            //  if current site is the same as this one
-            if (!anotherSiteOld.equals(this)) {
-                locus.intersect(findHalfPlane(new LineOld(this, anotherSiteOld).getPerpendicularByEquation(), true));
+            //  if current site is the same as this one, coordinates are compared directly instead of virtual equals
+            if (anotherSiteOld.x != this.x || anotherSiteOld.y != this.y) {
+                int verticesValue = LineOld.clipAreaByBisector(this.x, this.y, anotherSiteOld.x, anotherSiteOld.y,
+                        ParametersOld.xLimit, ParametersOld.yLimit, halfPlaneVertices);
+                halfPlane.reset();
+                for (int i = 0; i < verticesValue; i++) {
+                    if (i == 0)
+                        halfPlane.moveTo(halfPlaneVertices[0], halfPlaneVertices[1]);
+                    else
+                        halfPlane.lineTo(halfPlaneVertices[2 * i], halfPlaneVertices[2 * i + 1]);
+                }
+                halfPlane.closePath();
+                locus.intersect(new Area(halfPlane));
+                clipsValue++;
             }
         }
+        return clipsValue;
     }
 
     /**
-     * Find half plane of this site using perpendicular estimated with another site
-     * @param perpendicular perpendicular that was calculated between this site and another one
-     * @param useCustomSecondHalfEstimation true if use of custom algorithm is required, false if required area negation
-     * @return Half plane area containing this site
+     *  Find locus of this site as convex polygon: area rectangle is clipped by bisector with each another site in
+     * primitive buffers of the clipper, no Area or Polygon objects are created. Result is available as polygon and
+     * as locus area for painting.
+     * @param siteOlds array of all sites presented on this sector
+     * @param clipper reusable clipper, must not be shared between threads
      */
-    private Area findHalfPlane(LineOld perpendicular, boolean useCustomSecondHalfEstimation) {
-        //  iterate through sector borders in clockwise direction
-        ArrayList<PointOld> halfplaneCorners = findCornersOfHalfplane(borders, perpendicular, false);
-
-        //  form polygon out of estimated corners
-        Polygon halfPlane = new Polygon();
-        for (PointOld corner : halfplaneCorners) {
-            halfPlane.addPoint((int) corner.getX(), (int) corner.getY());
+    public void findLocusPolygon(ArrayList<SiteOld> siteOlds, ConvexCellClipper clipper) {
+        clipper.reset(0, 0, ParametersOld.xLimit, ParametersOld.yLimit);
+
+        //  iterate through each site, sites with the same coordinates do not split area
+        for (int i = 0; i < siteOlds.size() && !clipper.isEmpty(); i++) {
+            SiteOld anotherSiteOld = siteOlds.get(i);
+            if (anotherSiteOld.x != this.x || anotherSiteOld.y != this.y)
+                clipper.clipByBisector(this.x, this.y, anotherSiteOld.x, anotherSiteOld.y);
         }
 
-        //  if half plane contains site then return this area
-        if (halfPlane.contains(this.getX(), this.getY())) {
-            return new Area(halfPlane);
-        }
-        //  if half plane does not have site then return another half plane from this sector
-        else {
-            if (useCustomSecondHalfEstimation) {
-                //  use algorithm of finding corners of the halfplane with specified flag, defining which half plane is
-                // required and reset original halfplane
-                halfplaneCorners = findCornersOfHalfplane(borders, perpendicular, true);
-                halfPlane.reset();
-                for (PointOld corner : halfplaneCorners) {
-                    halfPlane.addPoint((int) corner.getX(), (int) corner.getY());
-                }
-
-                return new Area(halfPlane);
-            } else {
-                //  take area of sector and subtract from it area of the half plane that does not have site
-                Area siteArea = new Area(new Rectangle(0, 0, ParametersOld.xLimit, ParametersOld.yLimit));
-                siteArea.subtract(new Area(halfPlane));
-                return siteArea;
-            }
-        }
+        locusPolygon = clipper.copyVertices();
+        locus = LocusAreas.toArea(locusPolygon);
     }
 
     /**
-     * finds all corners of the halfplane by iterating through area borders (requires setting borders in clockwise direction)
-     * @param borders borders of the area defined in clockwise direction
-     * @param perpendicular perpendicular of the line
-     * @return list of points defining halfplane corners
+     *  Find locus of this site as convex polygon clipped only by bisectors with nearby sites, see
+     * {@link SiteGrid#clipLocus}. Result is available as polygon and as locus area for painting.
+     * @param siteGrid grid over all sites presented on this sector
+     * @param siteIndex index of this site in the grid
+     * @param clipper reusable clipper, must not be shared between threads
      */
-    private ArrayList<PointOld> findCornersOfHalfplane(ArrayList<LineOld> borders, LineOld perpendicular, boolean isSecondOneRequired) {
-        //  flag that will detect if half plane was completely found
-        int perpendicularPointsMet = 0;
-
-        //  half plane corners array
-        ArrayList<PointOld> halfplaneCorners = new ArrayList<>();
-
-        if (!isSecondOneRequired) {
-            //  iterate through sector borders (works with either clockwise or anti-clockwise direction)
-            for (LineOld border : borders) {
-                //  if any of the perpendicular is met -> append it to half plane corners -> show this to the flag
-                if (border.containsByEquation(perpendicular.getFirstPointOld())) {
-                    perpendicularPointsMet++;
-                    halfplaneCorners.add(perpendicular.getFirstPointOld());
-                } else if (border.containsByEquation(perpendicular.getSecondPointOld())) {
-                    perpendicularPointsMet++;
-                    halfplaneCorners.add(perpendicular.getSecondPointOld());
-                }
-
-                //  if both ends of perpendicular was checked -> half plane is found
-                if (perpendicularPointsMet == 2) {
-                    break;
-                }
-
-                    //  if corner is a part of half plane -> append it to the half plane corners list
-                else if (perpendicularPointsMet == 1) {
-                    halfplaneCorners.add(border.getSecondPointOld());
-                }
-            }
-        } else {
-            for (LineOld border : borders) {
-                //  if corner is a part of half plane -> append it to the half plane corners list
-                if (perpendicularPointsMet == 0 || perpendicularPointsMet == 2) {
-                    halfplaneCorners.add(border.getFirstPointOld());
-                }
-
-                //  if any of the perpendicular is met -> append it to half plane corners -> show this to the flag
-                if (border.containsByEquation(perpendicular.getFirstPointOld())) {
-                    perpendicularPointsMet++;
-                    halfplaneCorners.add(perpendicular.getFirstPointOld());
-                } else if (border.containsByEquation(perpendicular.getSecondPointOld())) {
-                    perpendicularPointsMet++;
-                    halfplaneCorners.add(perpendicular.getSecondPointOld());
-                }
-            }
-        }
-
-        return halfplaneCorners;
+    public void findLocusPolygon(SiteGrid siteGrid, int siteIndex, ConvexCellClipper clipper) {
+        siteGrid.clipLocus(siteIndex, clipper);
+        locusPolygon = clipper.copyVertices();
+        locus = LocusAreas.toArea(locusPolygon);
     }
 
     //  getters
@@ -178,6 +156,18 @@ public class SiteOld extends PointOld {
         return locus;
     }
 
+    public void setLocus(Area locus) {
+        this.locus = locus;
+    }
+
+    public double[] getLocusPolygon() {
+        return locusPolygon;
+    }
+
+    public void setLocusPolygon(double[] locusPolygon) {
+        this.locusPolygon = locusPolygon;
+    }
+
     @Override
     public String toString() {
         return "Site{" +
@@ -1,10 +1,18 @@
 package HalfPlaneIntersectionOld;
 
+import Metrics.Metrics;
+import Metrics.SummingMetricsSink;
+import PixelByPixelMethod.PolygonRasterizer;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Voronoi diagram class that builds locus for each site using perpendicular method.
@@ -19,6 +27,27 @@ public class VoronoiHalfPlaneIntersectionOld extends JFrame {
      * @throws Exception error of sending empty list of sites or any another
      */
     public VoronoiHalfPlaneIntersectionOld(ArrayList<SiteOld> siteOlds) throws Exception {
+        this(siteOlds, LocusMethod.HALF_PLANE_AREA);
+    }
+
+    /**
+     * Constructor, automatically creates locuses for all sites
+     * @param siteOlds reference to sites ArrayList for which is required locuses estimation
+     * @param locusMethod approach used for estimating locus of each site
+     * @throws Exception error of sending empty list of sites or any another
+     */
+    public VoronoiHalfPlaneIntersectionOld(ArrayList<SiteOld> siteOlds, LocusMethod locusMethod) throws Exception {
+        this(siteOlds, locusMethod, null);
+    }
+
+    /**
+     * Constructor, automatically creates locuses for all sites
+     * @param siteOlds reference to sites ArrayList for which is required locuses estimation
+     * @param locusMethod approach used for estimating locus of each site
+     * @param executor executor finding loci of chunks of sites in parallel, null to find them in the calling thread
+     * @throws Exception error of sending empty list of sites or any another
+     */
+    public VoronoiHalfPlaneIntersectionOld(ArrayList<SiteOld> siteOlds, LocusMethod locusMethod, ExecutorService executor) throws Exception {
         //  initialize panel for sites and locuses drawing, setting window size and how to close program
         JPanel panel = new JPanel();
         getContentPane().add(panel);
@@ -27,14 +56,8 @@ public class VoronoiHalfPlaneIntersectionOld extends JFrame {
         this.siteOlds = siteOlds;
 
         if (siteOlds.size() > 0) {
-            long startTime = System.currentTimeMillis();
-
-            //  find locus for each site
-            for (SiteOld siteOld : siteOlds)
-                siteOld.findLocus(siteOlds);
-
-            long endTime = System.currentTimeMillis();
-            System.out.println("Execution time is " + (endTime - startTime) + " ms.");
+            //  find locus for each site, time of it is reported to metrics sink as clipping phase
+            locusMethod.findLoci(siteOlds, executor);
         } else
             throw new Exception("Empty list of sites was transmitted");
     }
@@ -43,17 +66,34 @@ public class VoronoiHalfPlaneIntersectionOld extends JFrame {
         super.paint(g);  // fixes the immediate problem.
         Graphics2D g2 = (Graphics2D) g;
 
-        //  iterate through all sites
-        for (SiteOld siteOld : this.siteOlds) {
-            //  fill locus of the site with site color
-            g2.setColor(siteOld.getColor());
-            g2.fill(siteOld.getLocus());
-//            g2.draw(siteOld.getLocus());
+        //  fill loci of all sites with their colors in one raster instead of filling area of each of them
+        BufferedImage image = new BufferedImage(ParametersOld.xLimit, ParametersOld.yLimit, BufferedImage.TYPE_INT_RGB);
+        rasterizeLoci(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), null);
+        g2.drawImage(image, 0, 0, null);
 
-            //  display each site as small black ellipsoid
-            g2.setColor(Color.RED);
+        //  display each site as small black ellipsoid
+        g2.setColor(Color.RED);
+        for (SiteOld siteOld : this.siteOlds)
             g2.fill(new Ellipse2D.Double(siteOld.getX() - 2.5, siteOld.getY() - 2.5, 6, 6));
+    }
+
+    /**
+     *  Colorize pixels of the area by found loci with scanline filling of their polygons, no distance is evaluated.
+     * Pixel (x, y) is at y * xLimit + x, pixels not covered by any locus get black color.
+     * @param pixels storage for colors of xLimit * yLimit pixels of ParametersOld area
+     * @param executor executor that will fill bands of rows in parallel, null to fill them in the calling thread
+     */
+    public void rasterizeLoci(int[] pixels, ExecutorService executor) {
+        double[][] polygons = new double[this.siteOlds.size()][];
+        int[] colors = new int[this.siteOlds.size()];
+        for (int i = 0; i < this.siteOlds.size(); i++) {
+            SiteOld siteOld = this.siteOlds.get(i);
+            //  area approach keeps only locus area, its outline is the polygon
+            polygons[i] = siteOld.getLocusPolygon() != null ? siteOld.getLocusPolygon()
+                    : siteOld.getLocus() != null ? LocusAreas.fromArea(siteOld.getLocus()) : null;
+            colors[i] = siteOld.getColor() == null ? 0 : siteOld.getColor().getRGB();
         }
+        new PolygonRasterizer(ParametersOld.xLimit, ParametersOld.yLimit).fillPixels(polygons, colors, pixels, executor);
     }
 
 
@@ -66,8 +106,14 @@ public class VoronoiHalfPlaneIntersectionOld extends JFrame {
         for (int i = 0; i < 100; i++)
             siteOlds.add(new SiteOld(rand.nextInt(ParametersOld.xLimit), rand.nextInt(ParametersOld.yLimit), Color.getColor("s" ,rand.nextInt(16777215))));
 
+        //  collect timings of the run
+        SummingMetricsSink metricsSink = new SummingMetricsSink();
+        Metrics.setSink(metricsSink);
+
         //  create voronoi diagram with perpendicular half planes approach
-        VoronoiHalfPlaneIntersectionOld voronoiHalfPlaneIntersectionOld = new VoronoiHalfPlaneIntersectionOld(siteOlds);
+        VoronoiHalfPlaneIntersectionOld voronoiHalfPlaneIntersectionOld = new VoronoiHalfPlaneIntersectionOld(siteOlds,
+                LocusMethod.HALF_PLANE_AREA, ForkJoinPool.commonPool());
+        System.out.print(metricsSink);
 
         //  show it
         voronoiHalfPlaneIntersectionOld.setVisible(true);
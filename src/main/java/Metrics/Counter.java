@@ -0,0 +1,15 @@
+package Metrics;
+
+/**
+ * Counted amounts of work
+ */
+public enum Counter {
+    //  distances between a point and an interest point computed while searching for the closest one
+    DISTANCE_EVALUATIONS,
+
+    //  cuts of a locus by half plane of a bisector
+    HALF_PLANE_CLIPS,
+
+    //  pixels or labels written to output
+    PIXELS_WRITTEN
+}
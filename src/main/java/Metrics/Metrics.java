@@ -0,0 +1,86 @@
+package Metrics;
+
+/**
+ *  Entry point used by engines for reporting phases and counters to the current sink. Without sink every method is a
+ * read of one field and a branch, no clock is read and nothing is allocated, so calls may stay in production code.
+ * Engines count work in local variables and report it once per tile, strip or call, never per pixel. JFR sink is built
+ * by "jfr" profile and set at startup with -Dvoronoi.metrics=jfr.
+ */
+public final class Metrics {
+    //  system property selecting sink at startup, only "jfr" is known
+    public static final String SINK_PROPERTY = "voronoi.metrics";
+
+    //  class compiled by "jfr" build profile, missing in the usual build
+    private static final String JFR_SINK_CLASS = "Metrics.JfrMetricsSink";
+
+    private static volatile MetricsSink sink = "jfr".equalsIgnoreCase(System.getProperty(SINK_PROPERTY))
+            ? createJfrSink() : null;
+
+    private Metrics() {
+    }
+
+    /**
+     * load JFR sink if it was compiled and flight recorder is supported by this JVM
+     * @return JFR sink, null if it is not available
+     */
+    private static MetricsSink createJfrSink() {
+        try {
+            Class<?> sinkClass = Class.forName(JFR_SINK_CLASS, true, Metrics.class.getClassLoader());
+            return (MetricsSink) sinkClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * set receiver of all metrics
+     * @param metricsSink sink, null to disable recording
+     */
+    public static void setSink(MetricsSink metricsSink) {
+        sink = metricsSink;
+    }
+
+    /**
+     * @return current sink, null if recording is disabled
+     */
+    public static MetricsSink getSink() {
+        return sink;
+    }
+
+    /**
+     * @return true if metrics are recorded
+     */
+    public static boolean isEnabled() {
+        return sink != null;
+    }
+
+    /**
+     * Mark start of a phase
+     * @return value for {@link #endPhase(Phase, long)}, 0 if recording is disabled
+     */
+    public static long startPhase() {
+        return sink != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Mark end of a phase, nothing is recorded if recording was disabled at its start
+     * @param phase finished phase
+     * @param startNanos value returned by {@link #startPhase()}
+     */
+    public static void endPhase(Phase phase, long startNanos) {
+        MetricsSink currentSink = sink;
+        if (currentSink != null && startNanos != 0)
+            currentSink.phaseCompleted(phase, startNanos, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Add amount of work
+     * @param counter counted kind of work
+     * @param amount amount of work
+     */
+    public static void count(Counter counter, long amount) {
+        MetricsSink currentSink = sink;
+        if (currentSink != null && amount != 0)
+            currentSink.countAdded(counter, amount);
+    }
+}
@@ -0,0 +1,22 @@
+package Metrics;
+
+/**
+ *  Receiver of phase timings and counters, set through {@link Metrics#setSink(MetricsSink)}. Methods are called from
+ * any thread, often from several at once, so implementations must be thread-safe and cheap.
+ */
+public interface MetricsSink {
+    /**
+     * Phase has finished
+     * @param phase finished phase
+     * @param startNanos System.nanoTime() at the start of the phase
+     * @param durationNanos duration of the phase in nanoseconds
+     */
+    void phaseCompleted(Phase phase, long startNanos, long durationNanos);
+
+    /**
+     * Amount of work was done
+     * @param counter counted kind of work
+     * @param amount amount of work, added to previous amounts
+     */
+    void countAdded(Counter counter, long amount);
+}
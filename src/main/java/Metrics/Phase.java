@@ -0,0 +1,18 @@
+package Metrics;
+
+/**
+ * Timed phases of diagram generation
+ */
+public enum Phase {
+    //  building of spatial index over interest points
+    INDEX_BUILD,
+
+    //  assigning pixels or queries to the closest interest point
+    ASSIGNMENT,
+
+    //  building locus polygons of sites: half-plane clipping, sweep line or triangulation
+    CLIPPING,
+
+    //  encoding and writing of finished image or labels
+    ENCODING
+}
@@ -0,0 +1,73 @@
+package Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  Sink keeping totals in memory: overall time and amount of completions of each phase and sum of each counter.
+ * Totals are kept in striped adders, so threads reporting at once do not contend.
+ */
+public class SummingMetricsSink implements MetricsSink {
+    private final LongAdder[] phaseNanos = adders(Phase.values().length);
+    private final LongAdder[] phaseCompletions = adders(Phase.values().length);
+    private final LongAdder[] counts = adders(Counter.values().length);
+
+    private static LongAdder[] adders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    @Override
+    public void phaseCompleted(Phase phase, long startNanos, long durationNanos) {
+        this.phaseNanos[phase.ordinal()].add(durationNanos);
+        this.phaseCompletions[phase.ordinal()].increment();
+    }
+
+    @Override
+    public void countAdded(Counter counter, long amount) {
+        this.counts[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * Set all totals to zero
+     */
+    public void reset() {
+        for (LongAdder adder : this.phaseNanos)
+            adder.reset();
+        for (LongAdder adder : this.phaseCompletions)
+            adder.reset();
+        for (LongAdder adder : this.counts)
+            adder.reset();
+    }
+
+    /**
+     * @return one line per phase that happened and per counter that is not zero
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : Phase.values())
+            if (getPhaseCompletions(phase) > 0)
+                builder.append(phase).append(": ").append(getPhaseNanos(phase) / 1_000_000).append(" ms in ")
+                        .append(getPhaseCompletions(phase)).append(" parts").append(System.lineSeparator());
+        for (Counter counter : Counter.values())
+            if (getCount(counter) > 0)
+                builder.append(counter).append(": ").append(getCount(counter)).append(System.lineSeparator());
+        return builder.toString();
+    }
+
+    //  getters
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    public long getPhaseCompletions(Phase phase) {
+        return phaseCompletions[phase.ordinal()].sum();
+    }
+
+    public long getCount(Counter counter) {
+        return counts[counter.ordinal()].sum();
+    }
+}
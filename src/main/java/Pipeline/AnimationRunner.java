@@ -0,0 +1,142 @@
+package Pipeline;
+
+import Metrics.Metrics;
+import Metrics.Phase;
+import Metrics.SummingMetricsSink;
+import PixelByPixelMethod.CoherentFrameRaster;
+import PixelByPixelMethod.DistanceMetric;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *  Headless rendering of an animation: each site set is one frame of the same interest points drifting a little, index
+ * of an interest point is its identity between frames. Frames are computed one after another from the calling thread
+ * with owners of the previous frame as starting candidates (see {@link CoherentFrameRaster}) and handed to a single
+ * writer thread, so frame N is written while frame N + 1 is computed. Pixel buffers alternate between the two stages,
+ * computation waits for a free buffer, frames are written in their order.
+ */
+public class AnimationRunner {
+    //  amount of pixel buffers: one being computed and one being written
+    public static final int FRAME_BUFFERS = 2;
+
+    //  side of the square images
+    private final int imageSize;
+
+    //  owners of pixels carried from frame to frame
+    private final CoherentFrameRaster raster;
+
+    /**
+     * Constructor
+     * @param imageSize side of the square images
+     * @param metric distance used for finding the closest interest point
+     */
+    public AnimationRunner(int imageSize, DistanceMetric metric) {
+        this.imageSize = imageSize;
+        this.raster = new CoherentFrameRaster(imageSize, metric);
+    }
+
+    /**
+     * Render all frames and pass them to the sink, returns after everything is written
+     * @param frames source of frames, read lazily from the calling thread
+     * @param sink destination of frames
+     * @return amount of written frames
+     */
+    public int run(Iterator<SiteSet> frames, DiagramSink sink) {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        BlockingQueue<int[]> freeBuffers = new ArrayBlockingQueue<>(FRAME_BUFFERS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int[] writtenValue = new int[1];
+        int allocatedBuffers = 0;
+
+        try {
+            while (failure.get() == null && frames.hasNext()) {
+                SiteSet frame = frames.next();
+
+                //  wait for the writer to release a buffer once all buffers are in use
+                int[] pixels = freeBuffers.poll();
+                if (pixels == null) {
+                    if (allocatedBuffers < FRAME_BUFFERS) {
+                        pixels = new int[this.imageSize * this.imageSize];
+                        allocatedBuffers++;
+                    } else
+                        pixels = freeBuffers.take();
+                }
+
+                try {
+                    this.raster.renderFrame(frame.getInterestPointsX(), frame.getInterestPointsY(),
+                            frame.getInterestPointsColors(), frame.getInterestPointsValue(), pixels);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, new IllegalStateException("Frame " + frame.getName() + " was not computed", e));
+                    break;
+                }
+
+                final int[] buffer = pixels;
+                writer.execute(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            long startNanos = Metrics.startPhase();
+                            sink.write(frame, buffer, this.imageSize);
+                            Metrics.endPhase(Phase.ENCODING, startNanos);
+                            writtenValue[0]++;
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, new IOException("Frame " + frame.getName() + " was not written", e));
+                    } finally {
+                        freeBuffers.add(buffer);
+                    }
+                });
+            }
+
+            writer.shutdown();
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Animation rendering was interrupted", e);
+        } finally {
+            writer.shutdownNow();
+        }
+
+        if (failure.get() != null)
+            throw new IllegalStateException("Animation rendering failed", failure.get());
+        return writtenValue[0];
+    }
+
+    //  getters
+
+    public CoherentFrameRaster getRaster() {
+        return raster;
+    }
+
+    /**
+     * Render PNG frame for every site set file of the input directory, files are frames in order of their names
+     * arguments: input directory, output directory, image size, then optionally metric name (see DistanceMetric.parse)
+     * @param args command line arguments
+     * @throws IOException error of listing input directory or creating output directory
+     */
+    public static void main(String[] args) throws IOException {
+        //  nothing is displayed, make sure no window toolkit is ever initialized
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 3) {
+            System.out.println("Usage: AnimationRunner <input directory> <output directory> <image size> [euclidean|manhattan|chebyshev|minkowski:p]");
+            return;
+        }
+        int imageSize = Integer.parseInt(args[2]);
+        DistanceMetric metric = args.length > 3 ? DistanceMetric.parse(args[3]) : DistanceMetric.EUCLIDEAN;
+
+        SummingMetricsSink metricsSink = new SummingMetricsSink();
+        Metrics.setSink(metricsSink);
+        int written = new AnimationRunner(imageSize, metric)
+                .run(SiteSet.readAll(Paths.get(args[0])), new PngDirectorySink(Paths.get(args[1])));
+        System.out.println("Rendered " + written + " frames");
+        System.out.print(metricsSink);
+    }
+}
@@ -0,0 +1,183 @@
+package Pipeline;
+
+import Metrics.Metrics;
+import Metrics.Phase;
+import Metrics.SummingMetricsSink;
+import PixelByPixelMethod.DistanceMetric;
+import PixelByPixelMethod.VoronoiRaster;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *  Headless generation of many pixel diagrams. Site sets are read one by one, each diagram is computed on one thread of
+ * a fixed worker pool and handed to a single writer thread. Pixel buffers come from a bounded pool: reading of the next
+ * site set waits until some buffer is free, and a buffer is freed only after its diagram is written, so a slow disk
+ * slows down reading and computation instead of piling diagrams up in memory. At most maxInFlight images exist at once.
+ */
+public class BatchRunner {
+    //  side of the square images
+    private final int imageSize;
+
+    //  distance used for all diagrams
+    private final DistanceMetric metric;
+
+    //  amount of threads computing diagrams
+    private final int workers;
+
+    //  amount of diagrams that may be computed or waiting for writer at the same time
+    private final int maxInFlight;
+
+    //  true if nearest interest point must be found via spatial grid instead of linear scan over all points
+    private boolean isSpatialIndexRequired = true;
+
+    /**
+     * Constructor
+     * @param imageSize side of the square images
+     * @param metric distance used for finding the closest interest point
+     * @param workers amount of threads computing diagrams
+     * @param maxInFlight amount of pixel buffers, not less than workers so that every worker can be busy
+     */
+    public BatchRunner(int imageSize, DistanceMetric metric, int workers, int maxInFlight) {
+        if (imageSize <= 0 || workers <= 0 || maxInFlight < workers)
+            throw new IllegalArgumentException("Positive image size and workers and at least as many buffers as workers are required");
+        this.imageSize = imageSize;
+        this.metric = metric;
+        this.workers = workers;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Generate diagrams of all site sets and pass them to the sink, returns after everything is written
+     * @param siteSets source of site sets, read lazily from the calling thread
+     * @param sink destination of diagrams
+     * @return amount of written diagrams
+     */
+    public int run(Iterator<SiteSet> siteSets, DiagramSink sink) {
+        ExecutorService workerPool = Executors.newFixedThreadPool(this.workers);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        BlockingQueue<int[]> freeBuffers = new ArrayBlockingQueue<>(this.maxInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int[] writtenValue = new int[1];
+        int allocatedBuffers = 0;
+
+        try {
+            while (failure.get() == null && siteSets.hasNext()) {
+                SiteSet siteSet = siteSets.next();
+
+                //  back-pressure: wait for buffer released by the writer once all buffers are in use
+                int[] pixels = freeBuffers.poll();
+                if (pixels == null) {
+                    if (allocatedBuffers < this.maxInFlight) {
+                        pixels = new int[this.imageSize * this.imageSize];
+                        allocatedBuffers++;
+                    } else
+                        pixels = freeBuffers.take();
+                }
+
+                final int[] buffer = pixels;
+                workerPool.execute(() -> {
+                    try {
+                        compute(siteSet, buffer);
+                        writer.execute(() -> {
+                            try {
+                                if (failure.get() == null) {
+                                    long startNanos = Metrics.startPhase();
+                                    sink.write(siteSet, buffer, this.imageSize);
+                                    Metrics.endPhase(Phase.ENCODING, startNanos);
+                                    writtenValue[0]++;
+                                }
+                            } catch (Throwable e) {
+                                failure.compareAndSet(null, new IOException("Diagram " + siteSet.getName() + " was not written", e));
+                            } finally {
+                                freeBuffers.add(buffer);
+                            }
+                        });
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, new IllegalStateException("Diagram " + siteSet.getName() + " was not computed", e));
+                        freeBuffers.add(buffer);
+                    }
+                });
+            }
+
+            //  wait for computation first, only then writer has received all of its tasks
+            workerPool.shutdown();
+            workerPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            writer.shutdown();
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch generation was interrupted", e);
+        } finally {
+            workerPool.shutdownNow();
+            writer.shutdownNow();
+        }
+
+        if (failure.get() != null)
+            throw new IllegalStateException("Batch generation failed", failure.get());
+        return writtenValue[0];
+    }
+
+    /**
+     * Colorize pixels of one diagram
+     * @param siteSet interest points of the diagram
+     * @param pixels storage for colors of all pixels
+     */
+    private void compute(SiteSet siteSet, int[] pixels) {
+        int[] interestPointsX = siteSet.getInterestPointsX();
+        int[] interestPointsY = siteSet.getInterestPointsY();
+        for (int i = 0; i < siteSet.getInterestPointsValue(); i++)
+            if (interestPointsX[i] < 0 || interestPointsX[i] >= this.imageSize || interestPointsY[i] < 0 || interestPointsY[i] >= this.imageSize)
+                throw new IllegalArgumentException("Interest point " + i + " is outside of the image");
+
+        VoronoiRaster raster = new VoronoiRaster(interestPointsX, interestPointsY, siteSet.getInterestPointsColors(),
+                siteSet.getInterestPointsValue(), this.imageSize);
+        raster.setSpatialIndexRequired(this.isSpatialIndexRequired);
+        raster.fillPixels(pixels, this.metric);
+    }
+
+    /**
+     * set how nearest interest point is searched for each pixel
+     * @param isSpatialIndexRequired true if uniform grid over interest points must be used, false for linear scan
+     */
+    public void setSpatialIndexRequired(boolean isSpatialIndexRequired) {
+        this.isSpatialIndexRequired = isSpatialIndexRequired;
+    }
+
+    /**
+     * Generate PNG diagram for every site set file of the input directory
+     * arguments: input directory, output directory, image size, then optionally metric name (see DistanceMetric.parse), amount of
+     * workers and amount of buffers
+     * @param args command line arguments
+     * @throws IOException error of listing input directory or creating output directory
+     */
+    public static void main(String[] args) throws IOException {
+        //  nothing is displayed, make sure no window toolkit is ever initialized
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 3) {
+            System.out.println("Usage: BatchRunner <input directory> <output directory> <image size> [euclidean|manhattan|chebyshev|minkowski:p] [workers] [buffers]");
+            return;
+        }
+        int imageSize = Integer.parseInt(args[2]);
+        DistanceMetric metric = args.length > 3 ? DistanceMetric.parse(args[3]) : DistanceMetric.EUCLIDEAN;
+        int workers = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int maxInFlight = args.length > 5 ? Integer.parseInt(args[5]) : workers * 2;
+
+        Iterator<SiteSet> siteSets = SiteSet.readAll(Paths.get(args[0]));
+
+        SummingMetricsSink metricsSink = new SummingMetricsSink();
+        Metrics.setSink(metricsSink);
+        int written = new BatchRunner(imageSize, metric, workers, maxInFlight)
+                .run(siteSets, new PngDirectorySink(Paths.get(args[1])));
+        System.out.println("Generated " + written + " diagrams");
+        System.out.print(metricsSink);
+    }
+}
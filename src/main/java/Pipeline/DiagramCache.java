@@ -0,0 +1,188 @@
+package Pipeline;
+
+import HalfPlaneIntersectionOld.LocusMethod;
+import HalfPlaneIntersectionOld.ParametersOld;
+import PixelByPixelMethod.DistanceMetric;
+import PixelByPixelMethod.NearestSiteGrid;
+import PixelByPixelMethod.VoronoiRaster;
+import Sites.SiteStore;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  Cache of computed diagrams for services asked for the same site configuration many times, for example with
+ * different viewports. Locus polygons, rendered tiles and engines with spatial index over interest points are kept
+ * under {@link DiagramKey} built from content of sites, so a repeated request is answered without any computation no
+ * matter which objects hold its sites. Pixels are cached as fixed tiles of {@link #TILE_SIZE} aligned to the image
+ * origin, any viewport is composed of the tiles it overlaps, so panned or resized viewports reuse tiles rendered for
+ * earlier ones and only render tiles not seen yet. Total size of cached results is limited in bytes, least recently
+ * used ones are evicted first, concurrent identical requests share one computation (see {@link WeightedLruCache}).
+ * Returned locus polygons are shared and must not be modified, viewports are copied into new arrays.
+ */
+public class DiagramCache {
+    //  side of the square tile rendered and cached as one piece
+    public static final int TILE_SIZE = 256;
+
+    //  estimated size of array header and of key with its map entry
+    private static final long ARRAY_HEADER_BYTES = 16;
+    private static final long ENTRY_BYTES = 160;
+
+    //  cached results of all kinds, kind is part of the key
+    private final WeightedLruCache<DiagramKey, Object> cache;
+
+    //  executor computing missing results, null to compute them in the calling thread
+    private final ExecutorService executor;
+
+    /**
+     * Constructor, missing results are computed on the common fork-join pool
+     * @param maxBytes the largest estimated size of all cached results in bytes
+     */
+    public DiagramCache(long maxBytes) {
+        this(maxBytes, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor
+     * @param maxBytes the largest estimated size of all cached results in bytes
+     * @param executor executor computing missing results in parallel, null to compute them in the calling thread
+     */
+    public DiagramCache(long maxBytes, ExecutorService executor) {
+        this.cache = new WeightedLruCache<>(maxBytes, DiagramCache::estimateBytes);
+        this.executor = executor;
+    }
+
+    /**
+     * Get locus polygon of each site of the area, found with the method if they are not cached yet
+     * @param siteStore all sites of the area, must not be changed meanwhile
+     * @param locusMethod approach used for estimating locus of each site
+     * @return interleaved X and Y coordinates of locus vertices of each site, position in array matches site ID
+     */
+    public double[][] getLocusPolygons(SiteStore siteStore, LocusMethod locusMethod) {
+        DiagramKey key = DiagramKey.forLoci(siteStore, locusMethod, ParametersOld.xLimit, ParametersOld.yLimit);
+        return (double[][]) this.cache.get(key, () -> locusMethod.findLocusPolygons(siteStore, this.executor));
+    }
+
+    /**
+     * Get colors of pixels of rectangular viewport of the diagram, composed of cached tiles, missing tiles are rendered
+     * @param siteSet interest points of the diagram, each must be inside of the image, must not be changed afterwards
+     * @param metric distance used for finding the closest interest point
+     * @param imageSize side of the square image
+     * @param fromX first column of the viewport (inclusive)
+     * @param fromY first row of the viewport (inclusive)
+     * @param toX last column of the viewport (exclusive)
+     * @param toY last row of the viewport (exclusive)
+     * @return RGB colors of pixels, pixel (x, y) is at (y - fromY) * (toX - fromX) + (x - fromX)
+     */
+    public int[] getTile(SiteSet siteSet, DistanceMetric metric, int imageSize, int fromX, int fromY, int toX, int toY) {
+        if (fromX < 0 || fromY < 0 || toX > imageSize || toY > imageSize || fromX > toX || fromY > toY)
+            throw new IllegalArgumentException("Viewport [" + fromX + ", " + toX + ") x [" + fromY + ", " + toY + ") is outside of the image");
+        int width = toX - fromX;
+        int[] pixels = new int[width * (toY - fromY)];
+        if (pixels.length == 0)
+            return pixels;
+
+        for (int tileRow = fromY / TILE_SIZE; tileRow * TILE_SIZE < toY; tileRow++)
+            for (int tileColumn = fromX / TILE_SIZE; tileColumn * TILE_SIZE < toX; tileColumn++) {
+                int[] tile = getAlignedTile(siteSet, metric, imageSize, tileColumn, tileRow);
+                int tileFromX = tileColumn * TILE_SIZE;
+                int tileFromY = tileRow * TILE_SIZE;
+                int tileWidth = Math.min(TILE_SIZE, imageSize - tileFromX);
+
+                //  copy rows of the part of the tile overlapping the viewport
+                int copyFromX = Math.max(fromX, tileFromX);
+                int copyToX = Math.min(toX, tileFromX + tileWidth);
+                int copyToY = Math.min(toY, tileFromY + TILE_SIZE);
+                for (int y = Math.max(fromY, tileFromY); y < copyToY; y++)
+                    System.arraycopy(tile, (y - tileFromY) * tileWidth + (copyFromX - tileFromX),
+                            pixels, (y - fromY) * width + (copyFromX - fromX), copyToX - copyFromX);
+            }
+        return pixels;
+    }
+
+    /**
+     * Get colors of pixels of one aligned tile, tiles on the right and bottom borders are cut by the image
+     * @param siteSet interest points of the diagram
+     * @param metric distance used for finding the closest interest point
+     * @param imageSize side of the square image
+     * @param tileColumn column of the tile
+     * @param tileRow row of the tile
+     * @return RGB colors of pixels of the tile, row by row
+     */
+    private int[] getAlignedTile(SiteSet siteSet, DistanceMetric metric, int imageSize, int tileColumn, int tileRow) {
+        DiagramKey key = DiagramKey.forTile(siteSet, metric, imageSize, TILE_SIZE, tileColumn, tileRow);
+        return (int[]) this.cache.get(key, () -> {
+            RasterSource source = (RasterSource) this.cache.get(DiagramKey.forRaster(siteSet, imageSize),
+                    () -> new RasterSource(siteSet, imageSize));
+            int fromX = tileColumn * TILE_SIZE;
+            int fromY = tileRow * TILE_SIZE;
+            int toX = Math.min(fromX + TILE_SIZE, imageSize);
+            int toY = Math.min(fromY + TILE_SIZE, imageSize);
+            int[] pixels = new int[(toX - fromX) * (toY - fromY)];
+            source.raster.fillViewport(pixels, fromX, fromY, toX, toY, source.siteGrid, metric, false, this.executor);
+            return pixels;
+        });
+    }
+
+    /**
+     * Remove all cached results, statistics are kept
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+    /**
+     * Estimate memory taken by cached result
+     * @param value locus polygons, pixels or engine with spatial index
+     * @return estimated size in bytes
+     */
+    private static long estimateBytes(Object value) {
+        long bytes = ENTRY_BYTES;
+        if (value instanceof RasterSource) {
+            //  engine holds arrays of the site set, grid holds four arrays over sites and one over cells
+            RasterSource source = (RasterSource) value;
+            int cellsPerSide = source.siteGrid.getCellsPerSide();
+            bytes += 5 * ARRAY_HEADER_BYTES + 16L * source.interestPointsValue + 4L * (cellsPerSide * cellsPerSide + 1);
+        } else if (value instanceof int[])
+            bytes += ARRAY_HEADER_BYTES + 4L * ((int[]) value).length;
+        else if (value instanceof double[][]) {
+            double[][] polygons = (double[][]) value;
+            bytes += ARRAY_HEADER_BYTES + 8L * polygons.length;
+            for (double[] polygon : polygons)
+                if (polygon != null)
+                    bytes += ARRAY_HEADER_BYTES + 8L * polygon.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Engine over interest points of one site set with spatial index built once for all its tiles and metrics
+     */
+    private static final class RasterSource {
+        private final VoronoiRaster raster;
+        private final NearestSiteGrid siteGrid;
+        private final int interestPointsValue;
+
+        private RasterSource(SiteSet siteSet, int imageSize) {
+            this.interestPointsValue = siteSet.getInterestPointsValue();
+            this.raster = new VoronoiRaster(siteSet.getInterestPointsX(), siteSet.getInterestPointsY(),
+                    siteSet.getInterestPointsColors(), this.interestPointsValue, imageSize);
+            this.raster.setSpatialIndexRequired(true);
+            this.siteGrid = this.raster.createSiteGrid();
+        }
+    }
+
+    //  getters
+
+    /**
+     * @return underlying cache holding hit, miss, load and eviction statistics
+     */
+    public WeightedLruCache<DiagramKey, Object> getCache() {
+        return cache;
+    }
+
+    @Override
+    public String toString() {
+        return cache.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package Pipeline;
+
+import HalfPlaneIntersectionOld.LocusMethod;
+import PixelByPixelMethod.DistanceMetric;
+import Sites.SiteStore;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ *  Key of a cached diagram: SHA-256 digest of the sites content, kind of result with its metric or method and bounds
+ * of the computed area. Equal site configurations give equal keys no matter which objects hold them or how they are
+ * named, so the same diagram requested again with another site set object is still found. Digest of a site set is
+ * taken once and reused by all its keys (see {@link SiteSet#getContentDigest()}), digest of a site store is taken when
+ * the key is created, sites changed later need a new key.
+ */
+public final class DiagramKey {
+    //  kind of result, for example "tile:euclidean" or "loci:FORTUNE"
+    private final String kind;
+
+    //  digest of coordinates (and colors, if result depends on them) of all sites
+    private final byte[] sitesDigest;
+
+    //  bounds of the computed area
+    private final int[] bounds;
+
+    private final int hashCode;
+
+    private DiagramKey(String kind, byte[] sitesDigest, int[] bounds) {
+        this.kind = kind;
+        this.sitesDigest = sitesDigest;
+        this.bounds = bounds;
+        this.hashCode = 31 * (31 * kind.hashCode() + Arrays.hashCode(sitesDigest)) + Arrays.hashCode(bounds);
+    }
+
+    /**
+     * Key of rendered aligned tile of pixel diagram, colors of interest points are part of it
+     * @param siteSet interest points of the diagram
+     * @param metric distance used for finding the closest interest point
+     * @param imageSize side of the square image
+     * @param tileSize side of the square tile
+     * @param tileColumn column of the tile, its first pixel column is tileColumn * tileSize
+     * @param tileRow row of the tile, its first pixel row is tileRow * tileSize
+     * @return key of the tile
+     */
+    public static DiagramKey forTile(SiteSet siteSet, DistanceMetric metric, int imageSize, int tileSize, int tileColumn, int tileRow) {
+        return new DiagramKey("tile:" + metric, siteSet.getContentDigest(), new int[]{imageSize, tileSize, tileColumn, tileRow});
+    }
+
+    /**
+     * Key of engine and spatial index over interest points, shared by all tiles of the diagram in any metric
+     * @param siteSet interest points of the diagram
+     * @param imageSize side of the square image
+     * @return key of the engine
+     */
+    public static DiagramKey forRaster(SiteSet siteSet, int imageSize) {
+        return new DiagramKey("raster", siteSet.getContentDigest(), new int[]{imageSize});
+    }
+
+    /**
+     * Key of locus polygons of all sites, only coordinates of sites are part of it
+     * @param siteStore all sites of the area
+     * @param locusMethod approach used for estimating locus of each site
+     * @param width width of the area clipped by bisectors
+     * @param height height of the area clipped by bisectors
+     * @return key of the loci
+     */
+    public static DiagramKey forLoci(SiteStore siteStore, LocusMethod locusMethod, int width, int height) {
+        int sitesValue = siteStore.getSitesValue();
+        ByteBuffer content = ByteBuffer.allocate(4 + 16 * sitesValue).putInt(sitesValue);
+        for (int i = 0; i < sitesValue; i++)
+            content.putDouble(siteStore.getSitesX()[i]).putDouble(siteStore.getSitesY()[i]);
+        return new DiagramKey("loci:" + locusMethod, digest(content.array()), new int[]{width, height});
+    }
+
+    /**
+     * Digest of coordinates and colors of all interest points of the site set
+     * @param siteSet interest points to digest
+     * @return SHA-256 digest
+     */
+    static byte[] digest(SiteSet siteSet) {
+        int interestPointsValue = siteSet.getInterestPointsValue();
+        ByteBuffer content = ByteBuffer.allocate(4 + 12 * interestPointsValue).putInt(interestPointsValue);
+        for (int i = 0; i < interestPointsValue; i++)
+            content.putInt(siteSet.getInterestPointsX()[i])
+                    .putInt(siteSet.getInterestPointsY()[i])
+                    .putInt(siteSet.getInterestPointsColors()[i] & 0xFFFFFF);
+        return digest(content.array());
+    }
+
+    private static byte[] digest(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DiagramKey that = (DiagramKey) o;
+        return kind.equals(that.kind) && Arrays.equals(sitesDigest, that.sitesDigest) && Arrays.equals(bounds, that.bounds);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    //  getters
+
+    public String getKind() {
+        return kind;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder digest = new StringBuilder();
+        for (int i = 0; i < 4; i++)
+            digest.append(String.format("%02x", this.sitesDigest[i]));
+        return "DiagramKey{" +
+                "kind=" + kind +
+                ", sites=" + digest +
+                ", bounds=" + Arrays.toString(bounds) +
+                '}';
+    }
+}
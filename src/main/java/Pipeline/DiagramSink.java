@@ -0,0 +1,19 @@
+package Pipeline;
+
+import java.io.IOException;
+
+/**
+ * Destination of generated diagrams. Batch runner calls it from one writer thread only, diagrams come in the order
+ * they were finished, not in the order they were read. Animation runner also uses one writer thread and passes frames
+ * in their order.
+ */
+public interface DiagramSink {
+    /**
+     * Store one diagram, pixel array is reused by the runner after this call returns
+     * @param siteSet site set the diagram was generated for
+     * @param pixels RGB colors of pixels, pixel (x, y) is at y * imageSize + x
+     * @param imageSize side of the square image
+     * @throws IOException error of writing
+     */
+    void write(SiteSet siteSet, int[] pixels, int imageSize) throws IOException;
+}
@@ -0,0 +1,85 @@
+package Pipeline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  Writer of raw label file: index of the closest interest point for every pixel. File starts with 16-byte header
+ * (magic "VLBL", width, height, bytes per label), followed by width * height 32-bit labels in row order, all numbers
+ * are little-endian. Rows are written strip by strip through memory-mapped regions of the file, so only the strip
+ * being copied is touched and the whole label image never has to fit into the heap.
+ */
+public class LabelFileWriter implements AutoCloseable {
+    //  "VLBL" read as little-endian number
+    public static final int MAGIC = 0x4C424C56;
+
+    //  size of the header in bytes
+    public static final int HEADER_SIZE = 16;
+
+    //  size of one label in bytes
+    public static final int LABEL_SIZE = 4;
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+
+    //  amount of rows already written
+    private int rowsWritten;
+
+    /**
+     * Constructor, creates or truncates the file and writes its header
+     * @param file destination file
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     * @throws IOException error of opening or writing
+     */
+    public LabelFileWriter(Path file, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Unsupported image size " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(width).putInt(height).putInt(LABEL_SIZE).flip();
+        while (header.hasRemaining())
+            this.channel.write(header, header.position());
+    }
+
+    /**
+     * Write next rows of labels
+     * @param labels labels of pixels, row r of the strip starts at r * width
+     * @param rowCount amount of rows in the strip
+     * @throws IOException error of mapping or writing
+     */
+    public void writeRows(int[] labels, int rowCount) throws IOException {
+        if (this.rowsWritten + rowCount > this.height)
+            throw new IllegalStateException("Image has only " + this.height + " rows");
+
+        long position = HEADER_SIZE + (long) this.rowsWritten * this.width * LABEL_SIZE;
+        MappedByteBuffer region = this.channel.map(FileChannel.MapMode.READ_WRITE, position, (long) rowCount * this.width * LABEL_SIZE);
+        region.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(labels, 0, rowCount * this.width);
+        this.rowsWritten += rowCount;
+    }
+
+    /**
+     * Force written rows to the storage device and close the file, all rows must have been written
+     * @throws IOException error of closing, or not all rows were written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.rowsWritten != this.height)
+                throw new IOException("Only " + this.rowsWritten + " of " + this.height + " rows were written");
+            this.channel.force(false);
+        } finally {
+            this.channel.close();
+        }
+    }
+}
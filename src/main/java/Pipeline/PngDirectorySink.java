@@ -0,0 +1,46 @@
+package Pipeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ *  Writes each diagram as "name.png" into the directory. Images are encoded by {@link PngImageEncoder}: blocks of rows
+ * are compressed in parallel and diagrams with few colors are written as indexed images. No window toolkit classes are
+ * used, so it works in headless mode.
+ */
+public class PngDirectorySink implements DiagramSink {
+    //  directory for images
+    private final Path directory;
+
+    //  encoder of all diagrams
+    private final PngImageEncoder encoder;
+
+    /**
+     * Constructor, creates directory if it does not exist, images are compressed on the common fork-join pool
+     * @param directory directory for images
+     * @throws IOException error of creating directory
+     */
+    public PngDirectorySink(Path directory) throws IOException {
+        this(directory, new PngImageEncoder());
+    }
+
+    /**
+     * Constructor, creates directory if it does not exist
+     * @param directory directory for images
+     * @param encoder encoder of images
+     * @throws IOException error of creating directory
+     */
+    public PngDirectorySink(Path directory, PngImageEncoder encoder) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.encoder = encoder;
+    }
+
+    @Override
+    public void write(SiteSet siteSet, int[] pixels, int imageSize) throws IOException {
+        try (OutputStream output = Files.newOutputStream(this.directory.resolve(siteSet.getName() + ".png"))) {
+            this.encoder.write(pixels, imageSize, imageSize, output);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package Pipeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ *  Encoder of whole PNG images compressing blocks of rows in parallel. Diagram with at most MAX_PALETTE_SIZE distinct
+ * colors is written as indexed image with one byte per pixel, otherwise as 8-bit RGB. Rows are filtered into one
+ * buffer, then each block is deflated by its own compressor with the end of the previous block as preset dictionary and
+ * ends with sync flush, so concatenated blocks form one valid zlib stream compressing almost as well as a single
+ * compressor. Adler-32 checksums of blocks are combined into checksum of the whole stream. Blocks are written out in
+ * order as soon as they are ready.
+ */
+public class PngImageEncoder {
+    //  the largest palette of indexed PNG
+    public static final int MAX_PALETTE_SIZE = 256;
+
+    //  amount of filtered bytes compressed by one task
+    private static final int BLOCK_SIZE = 1 << 18;
+
+    //  window of deflate, preset dictionary longer than this is useless
+    private static final int DICTIONARY_SIZE = 1 << 15;
+
+    //  zlib stream header: deflate with 32K window, default compression
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C};
+
+    //  modulus of Adler-32 checksum
+    private static final int ADLER_BASE = 65521;
+
+    //  filter types of rows
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+
+    //  executor compressing blocks, null to encode in the calling thread
+    private final ExecutorService executor;
+
+    /**
+     * Constructor, blocks are compressed on the common fork-join pool
+     */
+    public PngImageEncoder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor
+     * @param executor executor that will filter and compress blocks of rows, null to encode in the calling thread
+     */
+    public PngImageEncoder(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Encode image into the channel
+     * @param pixels RGB colors of pixels, pixel (x, y) is at y * width + x
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     * @param channel destination of the image, blocking and not closed by the encoder
+     * @throws IOException error of writing
+     */
+    public void write(int[] pixels, int width, int height, WritableByteChannel channel) throws IOException {
+        write(pixels, width, height, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Encode image into the stream
+     * @param pixels RGB colors of pixels, pixel (x, y) is at y * width + x
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     * @param output destination of the image, not closed by the encoder
+     * @throws IOException error of writing
+     */
+    public void write(int[] pixels, int width, int height, OutputStream output) throws IOException {
+        if (width <= 0 || height <= 0 || (long) width * height > pixels.length)
+            throw new IllegalArgumentException("Image of " + width + "x" + height + " does not match " + pixels.length + " pixels");
+        Palette palette = Palette.find(pixels, width * height);
+        int rowSize = (palette == null ? 3 * width : width) + 1;
+        if ((long) rowSize * height > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Image of " + width + "x" + height + " is too large, encode it by strips with PngStripEncoder");
+
+        byte[] filtered = new byte[rowSize * height];
+        int rowsPerBlock = Math.max(1, BLOCK_SIZE / rowSize);
+        int blocksValue = (height + rowsPerBlock - 1) / rowsPerBlock;
+
+        //  rows are filtered independently of each other, all of them are needed before any dictionary is taken
+        List<Callable<CompressedBlock>> filterTasks = new ArrayList<>();
+        for (int block = 0; block < blocksValue; block++) {
+            final int fromRow = block * rowsPerBlock;
+            final int toRow = Math.min(fromRow + rowsPerBlock, height);
+            filterTasks.add(() -> {
+                filterRows(pixels, width, palette, filtered, rowSize, fromRow, toRow);
+                return null;
+            });
+        }
+        waitAll(submitAll(filterTasks));
+
+        List<Callable<CompressedBlock>> compressTasks = new ArrayList<>();
+        for (int block = 0; block < blocksValue; block++) {
+            final int from = block * rowsPerBlock * rowSize;
+            final int to = Math.min(from + rowsPerBlock * rowSize, filtered.length);
+            compressTasks.add(() -> compress(filtered, from, to));
+        }
+        List<Future<CompressedBlock>> compressed = submitAll(compressTasks);
+
+        CRC32 crc = new CRC32();
+        try {
+            output.write(PngStripEncoder.SIGNATURE);
+            byte[] header = new byte[13];
+            PngStripEncoder.putInt(header, 0, width);
+            PngStripEncoder.putInt(header, 4, height);
+            header[8] = 8;                                  //  bit depth
+            header[9] = (byte) (palette == null ? 2 : 3);   //  color type: RGB or indexed
+            header[10] = 0;                                 //  compression: deflate
+            header[11] = 0;                                 //  filter method: adaptive
+            header[12] = 0;                                 //  no interlace
+            PngStripEncoder.writeChunk(output, crc, "IHDR", header, 0, header.length);
+
+            if (palette != null) {
+                int[] colors = palette.colors;
+                byte[] entries = new byte[colors.length * 3];
+                for (int i = 0; i < colors.length; i++) {
+                    entries[3 * i] = (byte) (colors[i] >> 16);
+                    entries[3 * i + 1] = (byte) (colors[i] >> 8);
+                    entries[3 * i + 2] = (byte) colors[i];
+                }
+                PngStripEncoder.writeChunk(output, crc, "PLTE", entries, 0, entries.length);
+            }
+
+            //  zlib header goes before the first block, checksum of all filtered bytes after the last one
+            PngStripEncoder.writeChunk(output, crc, "IDAT", ZLIB_HEADER, 0, ZLIB_HEADER.length);
+            long adler = 1;
+            for (Future<CompressedBlock> future : compressed) {
+                CompressedBlock block = get(future);
+                PngStripEncoder.writeChunk(output, crc, "IDAT", block.data, 0, block.length);
+                adler = combineAdler(adler, block.adler, block.sourceLength);
+            }
+            byte[] checksum = new byte[4];
+            PngStripEncoder.putInt(checksum, 0, (int) adler);
+            PngStripEncoder.writeChunk(output, crc, "IDAT", checksum, 0, checksum.length);
+            PngStripEncoder.writeChunk(output, crc, "IEND", checksum, 0, 0);
+            output.flush();
+        } finally {
+            for (Future<CompressedBlock> future : compressed)
+                future.cancel(true);
+        }
+    }
+
+    /**
+     *  filter rows into the buffer: indexed rows are written as they are, RGB rows with Sub filter so that flat runs
+     * of one color turn into zeros
+     * @param pixels RGB colors of pixels
+     * @param width width of the image
+     * @param palette palette of indexed image, null for RGB image
+     * @param filtered storage for filtered rows, each one starts with its filter type byte
+     * @param rowSize bytes of one filtered row
+     * @param fromRow first row (inclusive)
+     * @param toRow last row (exclusive)
+     */
+    private static void filterRows(int[] pixels, int width, Palette palette, byte[] filtered, int rowSize, int fromRow, int toRow) {
+        for (int y = fromRow; y < toRow; y++) {
+            int offset = y * rowSize;
+            int pixelOffset = y * width;
+            if (palette != null) {
+                filtered[offset] = FILTER_NONE;
+                int previous = -1;
+                int index = 0;
+                for (int x = 0; x < width; x++) {
+                    int color = pixels[pixelOffset + x] & 0xFFFFFF;
+                    if (color != previous) {
+                        previous = color;
+                        index = palette.indexOf(color);
+                    }
+                    filtered[offset + 1 + x] = (byte) index;
+                }
+            } else {
+                filtered[offset] = FILTER_SUB;
+                int previous = 0;
+                for (int x = 0; x < width; x++) {
+                    int color = pixels[pixelOffset + x];
+                    //  Sub filter: difference with the same channel of the pixel on the left
+                    filtered[offset + 1 + 3 * x] = (byte) ((color >> 16) - (previous >> 16));
+                    filtered[offset + 2 + 3 * x] = (byte) ((color >> 8) - (previous >> 8));
+                    filtered[offset + 3 + 3 * x] = (byte) (color - previous);
+                    previous = color;
+                }
+            }
+        }
+    }
+
+    /**
+     * Deflate one block of filtered bytes into a piece of the common stream
+     * @param filtered all filtered rows
+     * @param from first byte of the block (inclusive)
+     * @param to last byte of the block (exclusive)
+     * @return raw deflate data of the block and Adler-32 checksum of its bytes
+     */
+    private static CompressedBlock compress(byte[] filtered, int from, int to) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            //  back references may reach the end of the previous block, decoder has it in its window
+            if (from > 0) {
+                int dictionaryFrom = Math.max(0, from - DICTIONARY_SIZE);
+                deflater.setDictionary(filtered, dictionaryFrom, from - dictionaryFrom);
+            }
+            deflater.setInput(filtered, from, to - from);
+            boolean isLast = to == filtered.length;
+            if (isLast)
+                deflater.finish();
+
+            byte[] data = new byte[Math.max(64, (to - from) / 8)];
+            int length = 0;
+            while (true) {
+                length += deflater.deflate(data, length, data.length - length, isLast ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                //  output buffer not filled up means that everything was flushed
+                if (isLast ? deflater.finished() : length < data.length)
+                    break;
+                if (length == data.length)
+                    data = Arrays.copyOf(data, data.length * 2);
+            }
+
+            Adler32 adler = new Adler32();
+            adler.update(filtered, from, to - from);
+            return new CompressedBlock(data, length, adler.getValue(), to - from);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Checksum of two concatenated pieces of data from checksums of the pieces
+     * @param first Adler-32 of the first piece
+     * @param second Adler-32 of the second piece
+     * @param secondLength amount of bytes of the second piece
+     * @return Adler-32 of both pieces
+     */
+    static long combineAdler(long first, long second, long secondLength) {
+        long remainder = secondLength % ADLER_BASE;
+        long sum1 = first & 0xFFFF;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((first >> 16) & 0xFFFF) + ((second >> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        sum1 %= ADLER_BASE;
+        sum2 %= ADLER_BASE;
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * Submit tasks to the executor, or run them right away without it
+     * @param tasks independent tasks
+     * @return futures of the tasks in the same order
+     */
+    private List<Future<CompressedBlock>> submitAll(List<Callable<CompressedBlock>> tasks) {
+        List<Future<CompressedBlock>> futures = new ArrayList<>();
+        for (Callable<CompressedBlock> task : tasks) {
+            if (this.executor != null) {
+                futures.add(this.executor.submit(task));
+                continue;
+            }
+            FutureTask<CompressedBlock> future = new FutureTask<>(task);
+            future.run();
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    private static void waitAll(List<Future<CompressedBlock>> futures) {
+        for (Future<CompressedBlock> future : futures)
+            get(future);
+    }
+
+    /**
+     * Wait for result of the task, failure of the task is rethrown
+     * @param future future of the task
+     * @return result of the task
+     */
+    private static CompressedBlock get(Future<CompressedBlock> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel encoding was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel encoding failed", e.getCause());
+        }
+    }
+
+    /**
+     * Distinct colors of indexed image and set finding index of each of them
+     */
+    private static final class Palette {
+        //  colors in order of their first appearance, position is index of color
+        private final int[] colors;
+
+        //  open addressing set of colors, four times larger than palette so that probes stay short, -1 marks empty slot
+        private final int[] table;
+        private final int[] indices;
+
+        private Palette(int[] colors, int[] table, int[] indices) {
+            this.colors = colors;
+            this.table = table;
+            this.indices = indices;
+        }
+
+        /**
+         * Collect distinct colors of the image while there are not more than MAX_PALETTE_SIZE of them
+         * @param pixels RGB colors of pixels
+         * @param pixelsValue amount of pixels
+         * @return palette of the image, null if there are too many colors
+         */
+        private static Palette find(int[] pixels, int pixelsValue) {
+            int[] table = new int[MAX_PALETTE_SIZE * 4];
+            Arrays.fill(table, -1);
+            int[] indices = new int[table.length];
+            int[] colors = new int[MAX_PALETTE_SIZE];
+            int colorsValue = 0;
+
+            int previous = -1;
+            for (int pixel = 0; pixel < pixelsValue; pixel++) {
+                int color = pixels[pixel] & 0xFFFFFF;
+                //  diagrams consist of long runs of one color
+                if (color == previous)
+                    continue;
+                previous = color;
+                int slot = slotOf(table, color);
+                if (table[slot] == color)
+                    continue;
+                if (colorsValue == MAX_PALETTE_SIZE)
+                    return null;
+                table[slot] = color;
+                indices[slot] = colorsValue;
+                colors[colorsValue++] = color;
+            }
+            return new Palette(Arrays.copyOf(colors, colorsValue), table, indices);
+        }
+
+        /**
+         * @param color RGB color present in the palette
+         * @return index of the color
+         */
+        private int indexOf(int color) {
+            return this.indices[slotOf(this.table, color)];
+        }
+
+        /**
+         * find slot of the color in the set, either holding the color or the empty one where it may be put
+         * @param table open addressing set of colors
+         * @param color RGB color
+         * @return slot index
+         */
+        private static int slotOf(int[] table, int color) {
+            int slot = (color * 0x9E3779B9) >>> 22 & (table.length - 1);
+            while (table[slot] != -1 && table[slot] != color)
+                slot = (slot + 1) & (table.length - 1);
+            return slot;
+        }
+    }
+
+    /**
+     * Deflated block of filtered rows
+     */
+    private static final class CompressedBlock {
+        private final byte[] data;
+        private final int length;
+        private final long adler;
+        private final int sourceLength;
+
+        private CompressedBlock(byte[] data, int length, long adler, int sourceLength) {
+            this.data = data;
+            this.length = length;
+            this.adler = adler;
+            this.sourceLength = sourceLength;
+        }
+    }
+
+    //  getters
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+}
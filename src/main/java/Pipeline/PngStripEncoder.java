@@ -0,0 +1,176 @@
+package Pipeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ *  Streaming encoder of 8-bit RGB PNG images. Rows are passed strip by strip in top-down order and are compressed as
+ * soon as they arrive, compressed data is flushed as IDAT chunks of fixed size, so memory used by the encoder does not
+ * depend on the image size. Each row uses Sub filter: flat runs of one color turn into zeros and compress well.
+ */
+public class PngStripEncoder implements AutoCloseable {
+    //  PNG file signature
+    static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    //  bytes of compressed data per IDAT chunk
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    //  filter type of each row
+    private static final int FILTER_SUB = 1;
+
+    private final OutputStream output;
+    private final int width;
+    private final int height;
+
+    //  filtered row waiting for compression, starts with filter type byte
+    private final byte[] row;
+
+    //  compressor and its output collected into one chunk
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkSize;
+
+    private final CRC32 crc = new CRC32();
+
+    //  amount of rows already encoded
+    private int rowsWritten;
+    private boolean isFinished;
+
+    /**
+     * Constructor, writes PNG signature and header
+     * @param output destination of the image, not closed by the encoder
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     * @throws IOException error of writing
+     */
+    public PngStripEncoder(OutputStream output, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0 || (long) width * 3 + 1 > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Unsupported image size " + width + "x" + height);
+        this.output = output;
+        this.width = width;
+        this.height = height;
+        this.row = new byte[width * 3 + 1];
+
+        output.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;      //  bit depth
+        header[9] = 2;      //  color type: RGB
+        header[10] = 0;     //  compression: deflate
+        header[11] = 0;     //  filter method: adaptive
+        header[12] = 0;     //  no interlace
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Encode next rows of the image
+     * @param pixels RGB colors of pixels, row r of the strip starts at r * width
+     * @param rowCount amount of rows in the strip
+     * @throws IOException error of writing
+     */
+    public void writeRows(int[] pixels, int rowCount) throws IOException {
+        if (this.isFinished || this.rowsWritten + rowCount > this.height)
+            throw new IllegalStateException("Image has only " + this.height + " rows");
+
+        for (int r = 0; r < rowCount; r++) {
+            int offset = r * this.width;
+            this.row[0] = FILTER_SUB;
+            int previous = 0;
+            for (int x = 0; x < this.width; x++) {
+                int color = pixels[offset + x];
+                //  Sub filter: difference with the same channel of the pixel on the left
+                this.row[1 + 3 * x] = (byte) ((color >> 16) - (previous >> 16));
+                this.row[2 + 3 * x] = (byte) ((color >> 8) - (previous >> 8));
+                this.row[3 + 3 * x] = (byte) (color - previous);
+                previous = color;
+            }
+            this.deflater.setInput(this.row);
+            while (!this.deflater.needsInput())
+                deflate();
+        }
+        this.rowsWritten += rowCount;
+    }
+
+    /**
+     * Flush the rest of compressed data and write image end, all rows must have been written
+     * @throws IOException error of writing
+     */
+    public void finish() throws IOException {
+        if (this.isFinished)
+            return;
+        if (this.rowsWritten != this.height)
+            throw new IllegalStateException("Only " + this.rowsWritten + " of " + this.height + " rows were written");
+
+        this.deflater.finish();
+        while (!this.deflater.finished())
+            deflate();
+        if (this.chunkSize > 0)
+            flushChunk();
+        writeChunk("IEND", this.chunk, 0);
+        this.output.flush();
+        this.isFinished = true;
+    }
+
+    /**
+     * Release compressor, output stream is left open
+     */
+    @Override
+    public void close() {
+        this.deflater.end();
+    }
+
+    /**
+     * Move compressed data into current chunk, full chunk is written out
+     * @throws IOException error of writing
+     */
+    private void deflate() throws IOException {
+        this.chunkSize += this.deflater.deflate(this.chunk, this.chunkSize, CHUNK_SIZE - this.chunkSize);
+        if (this.chunkSize == CHUNK_SIZE)
+            flushChunk();
+    }
+
+    private void flushChunk() throws IOException {
+        writeChunk("IDAT", this.chunk, this.chunkSize);
+        this.chunkSize = 0;
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        writeChunk(this.output, this.crc, type, data, 0, length);
+    }
+
+    /**
+     * Write chunk: length, type, data and CRC of type and data
+     * @param output destination of the chunk
+     * @param crc checksum reused between chunks
+     * @param type four letters of chunk type
+     * @param data buffer holding chunk data
+     * @param offset first byte of data in the buffer
+     * @param length amount of bytes of data
+     * @throws IOException error of writing
+     */
+    static void writeChunk(OutputStream output, CRC32 crc, String type, byte[] data, int offset, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] number = new byte[4];
+        putInt(number, 0, length);
+        output.write(number);
+        output.write(typeBytes);
+        output.write(data, offset, length);
+
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+        putInt(number, 0, (int) crc.getValue());
+        output.write(number);
+    }
+
+    static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+}
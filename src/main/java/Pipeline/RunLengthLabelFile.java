@@ -0,0 +1,147 @@
+package Pipeline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  Memory-mapped reader of run-length label file written by {@link RunLengthLabelWriter}. Owner of one pixel is found
+ * by reading start of its row from the row table and binary search over runs of the row, nothing else of the file is
+ * touched, so point queries do not decode whole images. Only absolute reads of the mapping are done, so one open file
+ * may serve queries of many threads.
+ */
+public class RunLengthLabelFile implements AutoCloseable {
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int bytesPerLabel;
+    private final long runCount;
+
+    //  size of one run in bytes: end column and label
+    private final int runSize;
+
+    //  index of the first run of each row, the last one is amount of runs
+    private final ByteBuffer rowTable;
+
+    //  all runs
+    private final ByteBuffer runs;
+
+    /**
+     * Constructor, maps the file for reading
+     * @param file run-length label file
+     * @throws IOException error of reading, or the file is not a run-length label file
+     */
+    public RunLengthLabelFile(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (this.channel.size() < RunLengthLabelWriter.HEADER_SIZE)
+                throw new IOException(file + " is too short for run-length label file");
+            MappedByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, RunLengthLabelWriter.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != RunLengthLabelWriter.MAGIC)
+                throw new IOException(file + " is not a run-length label file");
+            this.width = header.getInt(4);
+            this.height = header.getInt(8);
+            this.bytesPerLabel = header.getInt(12);
+            this.runCount = header.getLong(16);
+            if (this.width <= 0 || this.height <= 0 || (this.bytesPerLabel != 1 && this.bytesPerLabel != 2 && this.bytesPerLabel != 4))
+                throw new IOException(file + " has broken header");
+            this.runSize = Integer.BYTES + this.bytesPerLabel;
+
+            long tableSize = (long) (this.height + 1) * Long.BYTES;
+            long runsSize = this.runCount * this.runSize;
+            if (tableSize > Integer.MAX_VALUE || runsSize > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large for one mapping");
+            if (this.channel.size() < RunLengthLabelWriter.HEADER_SIZE + tableSize + runsSize)
+                throw new IOException(file + " is truncated");
+            this.rowTable = this.channel.map(FileChannel.MapMode.READ_ONLY, RunLengthLabelWriter.HEADER_SIZE, tableSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.runs = this.channel.map(FileChannel.MapMode.READ_ONLY, RunLengthLabelWriter.HEADER_SIZE + tableSize, runsSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Find owner of one pixel
+     * @param x column of the pixel
+     * @param y row of the pixel
+     * @return index of the closest interest point of the pixel
+     */
+    public int getLabel(int x, int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height)
+            throw new IndexOutOfBoundsException("Pixel " + x + ", " + y + " is outside of " + this.width + "x" + this.height + " image");
+
+        //  first run of the row which ends after the pixel
+        int low = (int) this.rowTable.getLong(y * Long.BYTES);
+        int high = (int) this.rowTable.getLong((y + 1) * Long.BYTES) - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.runs.getInt(middle * this.runSize) <= x)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return label(low);
+    }
+
+    /**
+     * Decode one row
+     * @param y row of the image
+     * @param labels destination, at least width long
+     */
+    public void readRow(int y, int[] labels) {
+        if (y < 0 || y >= this.height)
+            throw new IndexOutOfBoundsException("Row " + y + " is outside of " + this.height + " rows");
+        int fromRun = (int) this.rowTable.getLong(y * Long.BYTES);
+        int toRun = (int) this.rowTable.getLong((y + 1) * Long.BYTES);
+        int x = 0;
+        for (int run = fromRun; run < toRun; run++) {
+            int endX = this.runs.getInt(run * this.runSize);
+            int label = label(run);
+            while (x < endX)
+                labels[x++] = label;
+        }
+    }
+
+    private int label(int run) {
+        int position = run * this.runSize + Integer.BYTES;
+        switch (this.bytesPerLabel) {
+            case 1:
+                return this.runs.get(position) & 0xFF;
+            case 2:
+                return this.runs.getShort(position) & 0xFFFF;
+            default:
+                return this.runs.getInt(position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    //  getters
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBytesPerLabel() {
+        return bytesPerLabel;
+    }
+
+    public long getRunCount() {
+        return runCount;
+    }
+}
@@ -0,0 +1,173 @@
+package Pipeline;
+
+import PixelByPixelMethod.LabelRaster;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  Writer of run-length label file: index of the closest interest point for every pixel, each row stored as runs of
+ * equal labels. Layout, all numbers little-endian:
+ * <pre>
+ *  header     magic "VRLE", width, height, bytes per label (int32 each), total amount of runs (int64)
+ *  row table  height + 1 int64 values, value y is index of the first run of row y, the last one is amount of runs
+ *  runs       for each run: column after its last pixel (int32), then its label in bytes per label unsigned bytes
+ * </pre>
+ * Runs have fixed size, so any row is found through the row table and any pixel by binary search over runs of its
+ * row, see {@link RunLengthLabelFile}. Rows are accepted strip by strip and runs are streamed to the file, only the
+ * row table is kept in memory until the file is closed.
+ */
+public class RunLengthLabelWriter implements AutoCloseable {
+    //  "VRLE" read as little-endian number
+    public static final int MAGIC = 0x454C5256;
+
+    //  size of the header in bytes
+    public static final int HEADER_SIZE = 24;
+
+    //  size of buffer collecting runs before they are written
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int bytesPerLabel;
+
+    //  index of the first run of each row, the last element is amount of runs
+    private final long[] rowStarts;
+
+    //  runs not yet written to the file
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    //  position of the next run in the file
+    private long runsPosition;
+
+    private long runCount;
+    private int rowsWritten;
+
+    /**
+     * Constructor, creates or truncates the file
+     * @param file destination file
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     * @param interestPointsValue how many interest points there are, defines size of stored labels
+     * @throws IOException error of opening
+     */
+    public RunLengthLabelWriter(Path file, int width, int height, int interestPointsValue) throws IOException {
+        if (width <= 0 || height <= 0 || height == Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Unsupported image size " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.bytesPerLabel = LabelRaster.bytesPerLabel(interestPointsValue);
+        this.rowStarts = new long[height + 1];
+        this.runsPosition = HEADER_SIZE + (long) (height + 1) * Long.BYTES;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Write raster computed by engine as one file
+     * @param file destination file
+     * @param labelRaster labels of all pixels
+     * @param interestPointsValue how many interest points there are
+     * @throws IOException error of writing
+     */
+    public static void write(Path file, LabelRaster labelRaster, int interestPointsValue) throws IOException {
+        int[] row = new int[labelRaster.getWidth()];
+        try (RunLengthLabelWriter writer = new RunLengthLabelWriter(file, labelRaster.getWidth(), labelRaster.getHeight(), interestPointsValue)) {
+            for (int y = 0; y < labelRaster.getHeight(); y++) {
+                labelRaster.getRow(y, row);
+                writer.writeRows(row, 1);
+            }
+        }
+    }
+
+    /**
+     * Write next rows of labels
+     * @param labels labels of pixels, row r of the strip starts at r * width
+     * @param rowCount amount of rows in the strip
+     * @throws IOException error of writing
+     */
+    public void writeRows(int[] labels, int rowCount) throws IOException {
+        if (this.rowsWritten + rowCount > this.height)
+            throw new IllegalStateException("Image has only " + this.height + " rows");
+
+        for (int r = 0; r < rowCount; r++) {
+            int rowOffset = r * this.width;
+            this.rowStarts[this.rowsWritten] = this.runCount;
+            int runLabel = labels[rowOffset];
+            for (int x = 1; x < this.width; x++) {
+                int label = labels[rowOffset + x];
+                if (label != runLabel) {
+                    putRun(x, runLabel);
+                    runLabel = label;
+                }
+            }
+            putRun(this.width, runLabel);
+            this.rowsWritten++;
+        }
+    }
+
+    private void putRun(int endX, int label) throws IOException {
+        if (this.buffer.remaining() < Integer.BYTES + this.bytesPerLabel)
+            flush();
+        this.buffer.putInt(endX);
+        switch (this.bytesPerLabel) {
+            case 1:
+                this.buffer.put((byte) label);
+                break;
+            case 2:
+                this.buffer.putShort((short) label);
+                break;
+            default:
+                this.buffer.putInt(label);
+        }
+        this.runCount++;
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining())
+            this.runsPosition += this.channel.write(this.buffer, this.runsPosition);
+        this.buffer.clear();
+    }
+
+    /**
+     * Write remaining runs, row table and header, force them to the storage device and close the file, all rows must
+     * have been written
+     * @throws IOException error of writing, or not all rows were written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.rowsWritten != this.height)
+                throw new IOException("Only " + this.rowsWritten + " of " + this.height + " rows were written");
+            flush();
+            this.rowStarts[this.height] = this.runCount;
+
+            ByteBuffer table = ByteBuffer.allocate(HEADER_SIZE + this.rowStarts.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            table.putInt(MAGIC).putInt(this.width).putInt(this.height).putInt(this.bytesPerLabel).putLong(this.runCount);
+            for (long rowStart : this.rowStarts)
+                table.putLong(rowStart);
+            table.flip();
+            while (table.hasRemaining())
+                this.channel.write(table, table.position());
+            this.channel.force(false);
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    //  getters
+
+    public long getRunCount() {
+        return runCount;
+    }
+
+    public int getBytesPerLabel() {
+        return bytesPerLabel;
+    }
+}
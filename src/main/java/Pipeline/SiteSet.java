@@ -0,0 +1,170 @@
+package Pipeline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ *  One diagram to generate: name of the result and interest points with their colors. Text form has one interest
+ * point per line as "x y" or "x y color", color is hexadecimal RGB (for example ff8800), empty lines and lines starting
+ * with # are skipped. Interest points without color get a stable color derived from their index.
+ */
+public class SiteSet {
+    //  name of the diagram, used for naming output
+    private final String name;
+
+    //  interest points X and Y coordinates and colors
+    private final int[] interestPointsX;
+    private final int[] interestPointsY;
+    private final int[] interestPointsColors;
+    private final int interestPointsValue;
+
+    //  digest of interest points and their colors, taken on the first request
+    private volatile byte[] contentDigest;
+
+    /**
+     * Constructor
+     * @param name name of the diagram
+     * @param interestPointsX X coordinates of interest points
+     * @param interestPointsY Y coordinates of interest points
+     * @param interestPointsColors colors of interest points
+     * @param interestPointsValue how many interest points there are
+     */
+    public SiteSet(String name, int[] interestPointsX, int[] interestPointsY, int[] interestPointsColors, int interestPointsValue) {
+        this.name = name;
+        this.interestPointsX = interestPointsX;
+        this.interestPointsY = interestPointsY;
+        this.interestPointsColors = interestPointsColors;
+        this.interestPointsValue = interestPointsValue;
+    }
+
+    /**
+     * Read site set from text file, name of the file without extension becomes name of the diagram
+     * @param file text file with one interest point per line
+     * @return site set of the file
+     * @throws IOException error of reading or malformed line
+     */
+    public static SiteSet read(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String name = extension > 0 ? fileName.substring(0, extension) : fileName;
+
+        int[] interestPointsX = new int[16];
+        int[] interestPointsY = new int[16];
+        int[] interestPointsColors = new int[16];
+        int interestPointsValue = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+
+                String[] fields = line.split("\\s+");
+                if (fields.length != 2 && fields.length != 3)
+                    throw new IOException(file + ":" + lineNumber + ": expected \"x y\" or \"x y color\", got \"" + line + "\"");
+                if (interestPointsValue == interestPointsX.length) {
+                    interestPointsX = Arrays.copyOf(interestPointsX, interestPointsValue * 2);
+                    interestPointsY = Arrays.copyOf(interestPointsY, interestPointsValue * 2);
+                    interestPointsColors = Arrays.copyOf(interestPointsColors, interestPointsValue * 2);
+                }
+                try {
+                    interestPointsX[interestPointsValue] = Integer.parseInt(fields[0]);
+                    interestPointsY[interestPointsValue] = Integer.parseInt(fields[1]);
+                    interestPointsColors[interestPointsValue] = fields.length == 3
+                            ? Integer.parseInt(fields[2], 16) & 0xFFFFFF
+                            : defaultColor(interestPointsValue);
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNumber + ": malformed number in \"" + line + "\"", e);
+                }
+                interestPointsValue++;
+            }
+        }
+        return new SiteSet(name, interestPointsX, interestPointsY, interestPointsColors, interestPointsValue);
+    }
+
+    /**
+     *  List site set files of the directory in order of their names, files are read lazily one by one while iterating,
+     * error of reading is thrown as UncheckedIOException from next()
+     * @param directory directory with one site set file per diagram
+     * @return site sets of all regular files of the directory
+     * @throws IOException error of listing the directory
+     */
+    public static Iterator<SiteSet> readAll(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        Iterator<Path> fileIterator = files.iterator();
+        return new Iterator<SiteSet>() {
+            @Override
+            public boolean hasNext() {
+                return fileIterator.hasNext();
+            }
+
+            @Override
+            public SiteSet next() {
+                try {
+                    return read(fileIterator.next());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Color of interest point that has no color given, spread over the whole RGB range by golden ratio hashing
+     * @param interestPoint index of the interest point
+     * @return RGB color
+     */
+    public static int defaultColor(int interestPoint) {
+        return (int) ((interestPoint * 2654435761L) & 0xFFFFFF);
+    }
+
+    /**
+     *  Digest of coordinates and colors of all interest points identifying the diagram in caches, taken once and
+     * reused by every lookup, so interest points must not be changed after the diagram was requested from a cache
+     * @return SHA-256 digest of the content, must not be modified
+     */
+    byte[] getContentDigest() {
+        byte[] digest = this.contentDigest;
+        if (digest == null) {
+            digest = DiagramKey.digest(this);
+            this.contentDigest = digest;
+        }
+        return digest;
+    }
+
+    //  getters
+
+    public String getName() {
+        return name;
+    }
+
+    public int[] getInterestPointsX() {
+        return interestPointsX;
+    }
+
+    public int[] getInterestPointsY() {
+        return interestPointsY;
+    }
+
+    public int[] getInterestPointsColors() {
+        return interestPointsColors;
+    }
+
+    public int getInterestPointsValue() {
+        return interestPointsValue;
+    }
+}
@@ -0,0 +1,164 @@
+package Pipeline;
+
+import Metrics.Metrics;
+import Metrics.Phase;
+import Metrics.SummingMetricsSink;
+import PixelByPixelMethod.DistanceMetric;
+import PixelByPixelMethod.NearestSiteGrid;
+import PixelByPixelMethod.VoronoiRaster;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  Streaming output of pixel diagrams of any size. Image is computed in horizontal strips of fixed height, each strip
+ * is encoded to PNG or written to raw label file before the next one is computed, and its array is reused. Peak memory
+ * is stripHeight * imageSize values plus the spatial index, whatever the area of the image is.
+ */
+public class StripRenderer {
+    //  default amount of rows computed at once
+    public static final int DEFAULT_STRIP_HEIGHT = 256;
+
+    private final VoronoiRaster raster;
+    private final int stripHeight;
+
+    //  executor computing bands of each strip, null to compute in the calling thread
+    private ExecutorService executor = ForkJoinPool.commonPool();
+
+    /**
+     * Constructor
+     * @param raster engine holding interest points, spatial index setting of it is respected
+     * @param stripHeight amount of rows computed at once
+     */
+    public StripRenderer(VoronoiRaster raster, int stripHeight) {
+        if (stripHeight <= 0 || (long) stripHeight * raster.getImageSize() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Strip of " + stripHeight + " rows does not fit into one array");
+        this.raster = raster;
+        this.stripHeight = stripHeight;
+    }
+
+    /**
+     * Compute diagram strip by strip and encode it as PNG
+     * @param output destination of the image, not closed
+     * @param metric distance used for finding the closest interest point
+     * @throws IOException error of writing
+     */
+    public void writePng(OutputStream output, DistanceMetric metric) throws IOException {
+        int imageSize = this.raster.getImageSize();
+        try (PngStripEncoder encoder = new PngStripEncoder(output, imageSize, imageSize)) {
+            render(metric, false, encoder::writeRows);
+            encoder.finish();
+        }
+    }
+
+    /**
+     * Compute diagram strip by strip and write index of the closest interest point of each pixel to raw label file,
+     * see {@link LabelFileWriter} for its layout
+     * @param file destination file
+     * @param metric distance used for finding the closest interest point
+     * @throws IOException error of writing
+     */
+    public void writeLabels(Path file, DistanceMetric metric) throws IOException {
+        int imageSize = this.raster.getImageSize();
+        try (LabelFileWriter writer = new LabelFileWriter(file, imageSize, imageSize)) {
+            render(metric, true, writer::writeRows);
+        }
+    }
+
+    /**
+     * Compute diagram strip by strip and write it as run-length label file, see {@link RunLengthLabelWriter} for its
+     * layout
+     * @param file destination file
+     * @param metric distance used for finding the closest interest point
+     * @throws IOException error of writing
+     */
+    public void writeRunLengthLabels(Path file, DistanceMetric metric) throws IOException {
+        int imageSize = this.raster.getImageSize();
+        try (RunLengthLabelWriter writer = new RunLengthLabelWriter(file, imageSize, imageSize, this.raster.getInterestPointsValue())) {
+            render(metric, true, writer::writeRows);
+        }
+    }
+
+    /**
+     * Compute all strips in top-down order, passing each of them to consumer
+     * @param metric distance used for finding the closest interest point
+     * @param isLabelRequired true if labels must be computed instead of colors
+     * @param consumer receiver of strips, the array is overwritten by the next strip
+     * @throws IOException error of consumer
+     */
+    private void render(DistanceMetric metric, boolean isLabelRequired, StripConsumer consumer) throws IOException {
+        int imageSize = this.raster.getImageSize();
+        int[] strip = new int[Math.min(this.stripHeight, imageSize) * imageSize];
+
+        //  one spatial index serves all strips of the image
+        NearestSiteGrid siteGrid = this.raster.createSiteGrid();
+        for (int fromRow = 0; fromRow < imageSize; fromRow += this.stripHeight) {
+            int toRow = Math.min(fromRow + this.stripHeight, imageSize);
+            this.raster.fillRows(strip, fromRow, toRow, siteGrid, metric, isLabelRequired, this.executor);
+            long startNanos = Metrics.startPhase();
+            consumer.accept(strip, toRow - fromRow);
+            Metrics.endPhase(Phase.ENCODING, startNanos);
+        }
+    }
+
+    /**
+     * Receiver of computed strip
+     */
+    private interface StripConsumer {
+        void accept(int[] strip, int rowCount) throws IOException;
+    }
+
+    /**
+     * set executor computing bands of each strip
+     * @param executor executor, null to compute in the calling thread
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Render one site set file without holding the whole image in memory
+     * arguments: site set file, output file (".png" for image, ".rle" for run-length labels, anything else for raw
+     * labels), image size, then
+     * optionally metric name (see DistanceMetric.parse) and strip height
+     * @param args command line arguments
+     * @throws IOException error of reading or writing
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 3) {
+            System.out.println("Usage: StripRenderer <site set file> <output file> <image size> [euclidean|manhattan|chebyshev|minkowski:p] [strip height]");
+            return;
+        }
+        SiteSet siteSet = SiteSet.read(Paths.get(args[0]));
+        Path outputFile = Paths.get(args[1]);
+        int imageSize = Integer.parseInt(args[2]);
+        DistanceMetric metric = args.length > 3 ? DistanceMetric.parse(args[3]) : DistanceMetric.EUCLIDEAN;
+        int stripHeight = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_STRIP_HEIGHT;
+
+        VoronoiRaster raster = new VoronoiRaster(siteSet.getInterestPointsX(), siteSet.getInterestPointsY(),
+                siteSet.getInterestPointsColors(), siteSet.getInterestPointsValue(), imageSize);
+        raster.setSpatialIndexRequired(true);
+        StripRenderer renderer = new StripRenderer(raster, stripHeight);
+
+        SummingMetricsSink metricsSink = new SummingMetricsSink();
+        Metrics.setSink(metricsSink);
+        String outputName = outputFile.getFileName().toString().toLowerCase();
+        if (outputName.endsWith(".png"))
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputFile))) {
+                renderer.writePng(output, metric);
+            }
+        else if (outputName.endsWith(".rle"))
+            renderer.writeRunLengthLabels(outputFile, metric);
+        else
+            renderer.writeLabels(outputFile, metric);
+        System.out.print(metricsSink);
+    }
+}
@@ -0,0 +1,242 @@
+package Pipeline;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.ToLongFunction;
+
+/**
+ *  Thread-safe cache of computed values limited by their total weight, least recently used values are evicted first.
+ * Loading is single-flight: while a value is being computed, other threads asking for the same key wait for that
+ * computation instead of starting their own, failed computation is not cached and is rethrown to all of them. Values
+ * are computed outside of the lock, so loading of one key never blocks reading of others.
+ * @param <K> key, must implement equals and hashCode over its content
+ * @param <V> cached value, shared by all callers and must not be modified by them
+ */
+public class WeightedLruCache<K, V> {
+    //  the largest total weight of cached values
+    private final long maxWeight;
+
+    //  weight of each value, for example its size in bytes
+    private final ToLongFunction<? super V> weigher;
+
+    //  cached values in access order, the eldest one is evicted first, guarded by lock
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    //  computations in progress, guarded by lock
+    private final Map<K, FutureTask<V>> loading = new HashMap<>();
+
+    private final Object lock = new Object();
+
+    //  statistics, guarded by lock
+    private long weight;
+    private long hitsValue;
+    private long missesValue;
+    private long loadsValue;
+    private long loadFailuresValue;
+    private long evictionsValue;
+
+    /**
+     * Constructor
+     * @param maxWeight the largest total weight of cached values, a value heavier than that is returned but not cached
+     * @param weigher weight of each value, for example its size in bytes
+     */
+    public WeightedLruCache(long maxWeight, ToLongFunction<? super V> weigher) {
+        if (maxWeight < 0)
+            throw new IllegalArgumentException("Maximal weight must not be negative, got " + maxWeight);
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Get value of the key, computing it if it is not cached yet
+     * @param key key of the value
+     * @param loader computation of the value, run by at most one thread per key at a time, must not return null
+     * @return cached or computed value
+     */
+    public V get(K key, Callable<V> loader) {
+        FutureTask<V> task;
+        boolean isLoader = false;
+        synchronized (this.lock) {
+            Entry<V> entry = this.entries.get(key);
+            if (entry != null) {
+                this.hitsValue++;
+                return entry.value;
+            }
+            this.missesValue++;
+            task = this.loading.get(key);
+            if (task == null) {
+                task = new FutureTask<>(loader);
+                this.loading.put(key, task);
+                isLoader = true;
+            }
+        }
+
+        if (isLoader) {
+            task.run();
+            //  value is moved from loading to entries at once, so no second computation may start in between
+            synchronized (this.lock) {
+                this.loading.remove(key);
+                this.loadsValue++;
+                try {
+                    put(key, task.get());
+                } catch (ExecutionException | InterruptedException e) {
+                    this.loadFailuresValue++;
+                }
+            }
+        }
+
+        try {
+            V value = task.get();
+            if (value == null)
+                throw new IllegalStateException("Loader of " + key + " returned null");
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Waiting for " + key + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Computation of " + key + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Get cached value without computing it
+     * @param key key of the value
+     * @return cached value, null if there is none
+     */
+    public V getIfPresent(K key) {
+        synchronized (this.lock) {
+            Entry<V> entry = this.entries.get(key);
+            if (entry == null) {
+                this.missesValue++;
+                return null;
+            }
+            this.hitsValue++;
+            return entry.value;
+        }
+    }
+
+    /**
+     * Remove all cached values, computations in progress are not affected
+     */
+    public void clear() {
+        synchronized (this.lock) {
+            this.entries.clear();
+            this.weight = 0;
+        }
+    }
+
+    /**
+     * cache computed value and evict the least recently used ones until total weight fits into the limit, must be
+     * called under lock
+     * @param key key of the value
+     * @param value computed value
+     */
+    private void put(K key, V value) {
+        if (value == null)
+            return;
+        long valueWeight = this.weigher.applyAsLong(value);
+        if (valueWeight > this.maxWeight)
+            return;
+        Entry<V> previous = this.entries.put(key, new Entry<>(value, valueWeight));
+        if (previous != null)
+            this.weight -= previous.weight;
+        this.weight += valueWeight;
+
+        Iterator<Entry<V>> eldest = this.entries.values().iterator();
+        while (this.weight > this.maxWeight) {
+            this.weight -= eldest.next().weight;
+            eldest.remove();
+            this.evictionsValue++;
+        }
+    }
+
+    /**
+     * Cached value with its weight
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    //  getters
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public long getWeight() {
+        synchronized (this.lock) {
+            return weight;
+        }
+    }
+
+    public int getSize() {
+        synchronized (this.lock) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return amount of requests answered from the cache
+     */
+    public long getHitsValue() {
+        synchronized (this.lock) {
+            return hitsValue;
+        }
+    }
+
+    /**
+     * @return amount of requests not found in the cache, including ones that waited for computation of another thread
+     */
+    public long getMissesValue() {
+        synchronized (this.lock) {
+            return missesValue;
+        }
+    }
+
+    /**
+     * @return amount of finished computations, including failed ones
+     */
+    public long getLoadsValue() {
+        synchronized (this.lock) {
+            return loadsValue;
+        }
+    }
+
+    public long getLoadFailuresValue() {
+        synchronized (this.lock) {
+            return loadFailuresValue;
+        }
+    }
+
+    public long getEvictionsValue() {
+        synchronized (this.lock) {
+            return evictionsValue;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (this.lock) {
+            return "WeightedLruCache{" +
+                    "size=" + entries.size() +
+                    ", weight=" + weight + "/" + maxWeight +
+                    ", hits=" + hitsValue +
+                    ", misses=" + missesValue +
+                    ", loads=" + loadsValue +
+                    ", loadFailures=" + loadFailuresValue +
+                    ", evictions=" + evictionsValue +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package PixelByPixelMethod;
+
+import Metrics.Counter;
+import Metrics.Metrics;
+import Metrics.Phase;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  Pixel diagrams of a sequence of frames where interest points drift a little between frames. Index of an interest
+ * point is its identity over the whole sequence. Owner of each pixel on the previous frame is kept and used as the
+ * starting candidate of the next frame: distance to it bounds the grid search right away, so only interest points of
+ * the closest cells are checked again. Result of every frame is identical to the full recalculation, frames differing
+ * in amount of interest points start from scratch.
+ */
+public class CoherentFrameRaster {
+    //  side of the square image
+    private final int imageSize;
+
+    //  distance used for finding the closest interest point
+    private final DistanceMetric metric;
+
+    //  owner of each pixel on the previous frame, -1 before the first one, pixel (x, y) is at y * imageSize + x
+    private final int[] labels;
+
+    //  amount of interest points of the previous frame, -1 before the first one
+    private int previousInterestPointsValue = -1;
+
+    //  executor computing bands of rows, null to compute in the calling thread
+    private ExecutorService executor = ForkJoinPool.commonPool();
+
+    private int framesValue;
+
+    /**
+     * Constructor
+     * @param imageSize side of the square image
+     * @param metric distance used for finding the closest interest point
+     */
+    public CoherentFrameRaster(int imageSize, DistanceMetric metric) {
+        if (imageSize <= 0)
+            throw new IllegalArgumentException("Positive image size is required");
+        this.imageSize = imageSize;
+        this.metric = metric;
+        this.labels = new int[imageSize * imageSize];
+        Arrays.fill(this.labels, -1);
+    }
+
+    /**
+     * Colorize pixels of the next frame
+     * @param interestPointsX X coordinates of interest points, each must be inside of the image
+     * @param interestPointsY Y coordinates of interest points, each must be inside of the image
+     * @param interestPointsColors colors of interest points
+     * @param interestPointsValue how many interest points there are
+     * @param pixels storage for colors of all pixels, pixel (x, y) is at y * imageSize + x
+     */
+    public void renderFrame(int[] interestPointsX, int[] interestPointsY, int[] interestPointsColors, int interestPointsValue, int[] pixels) {
+        for (int i = 0; i < interestPointsValue; i++)
+            if (interestPointsX[i] < 0 || interestPointsX[i] >= this.imageSize || interestPointsY[i] < 0 || interestPointsY[i] >= this.imageSize)
+                throw new IllegalArgumentException("Interest point " + i + " is outside of the image");
+        if (interestPointsValue != this.previousInterestPointsValue)
+            reset();
+
+        long indexStartNanos = Metrics.startPhase();
+        NearestSiteGrid siteGrid = new NearestSiteGrid(interestPointsX, interestPointsY, interestPointsValue, this.imageSize);
+        Metrics.endPhase(Phase.INDEX_BUILD, indexStartNanos);
+
+        long startNanos = Metrics.startPhase();
+        if (this.executor == null)
+            fillRows(pixels, interestPointsColors, 0, this.imageSize, siteGrid);
+        else
+            ParallelTasks.runRowBands(this.executor, this.imageSize, ParallelTasks.defaultBands(),
+                    (fromRow, toRow) -> fillRows(pixels, interestPointsColors, fromRow, toRow, siteGrid));
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+        Metrics.count(Counter.PIXELS_WRITTEN, (long) this.imageSize * this.imageSize);
+
+        this.previousInterestPointsValue = interestPointsValue;
+        this.framesValue++;
+    }
+
+    /**
+     * assign pixels of rows to interest points and colorize them
+     * @param pixels storage for colors of all pixels
+     * @param interestPointsColors colors of interest points
+     * @param fromRow first row (inclusive)
+     * @param toRow last row (exclusive)
+     * @param siteGrid grid over interest points of the frame
+     */
+    private void fillRows(int[] pixels, int[] interestPointsColors, int fromRow, int toRow, NearestSiteGrid siteGrid) {
+        long evaluations = 0;
+        for (int y = fromRow; y < toRow; y++) {
+            int rowOffset = y * this.imageSize;
+            for (int x = 0; x < this.imageSize; x++) {
+                //  warm start: owner on previous frame, or left neighbour on the first one
+                int hint = this.labels[rowOffset + x];
+                if (hint < 0 && x > 0)
+                    hint = this.labels[rowOffset + x - 1];
+                long counted = siteGrid.findClosestCounted(x, y, this.metric, hint);
+                int closest = (int) counted;
+                evaluations += counted >>> 32;
+
+                this.labels[rowOffset + x] = closest;
+                pixels[rowOffset + x] = interestPointsColors[closest] & 0xFFFFFF;
+            }
+        }
+        Metrics.count(Counter.DISTANCE_EVALUATIONS, evaluations);
+    }
+
+    /**
+     * Forget owners of the previous frame, the next frame is computed from scratch
+     */
+    public void reset() {
+        Arrays.fill(this.labels, -1);
+        this.previousInterestPointsValue = -1;
+    }
+
+    /**
+     * set executor computing bands of rows
+     * @param executor executor, null to compute in the calling thread
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    //  getters
+
+    /**
+     * @return owner of each pixel on the last frame, pixel (x, y) is at y * imageSize + x
+     */
+    public int[] getLabels() {
+        return labels;
+    }
+
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    public DistanceMetric getMetric() {
+        return metric;
+    }
+
+    public int getFramesValue() {
+        return framesValue;
+    }
+}
@@ -0,0 +1,258 @@
+package PixelByPixelMethod;
+
+/**
+ *  Distance used for finding the closest interest point. Each metric is a separate final class with its own nearest
+ * point loop, so the metric is chosen once per run and the loop over interest points has neither metric branch nor
+ * virtual call inside. Distances are compared in comparable form that keeps their order without roots: squared
+ * distance for Euclidean metric, |dx|^p + |dy|^p for Minkowski one, plain integer distance for Manhattan and Chebyshev.
+ * On equal distance the interest point with lower index wins in every metric. The metric itself is the scalar
+ * {@link NearestSiteKernel} of it.
+ */
+public abstract class DistanceMetric implements NearestSiteKernel {
+    //  sqrt(dx^2 + dy^2)
+    public static final DistanceMetric EUCLIDEAN = new Euclidean();
+
+    //  |dx| + |dy|
+    public static final DistanceMetric MANHATTAN = new Manhattan();
+
+    //  max(|dx|, |dy|)
+    public static final DistanceMetric CHEBYSHEV = new Chebyshev();
+
+    /**
+     * Minkowski metric of given order, orders 1, 2 and infinity give specialized Manhattan, Euclidean and Chebyshev ones
+     * @param order order p of the metric, at least 1
+     * @return metric
+     */
+    public static DistanceMetric minkowski(double order) {
+        if (!(order >= 1))
+            throw new IllegalArgumentException("Minkowski order must be at least 1, got " + order);
+        if (order == 1)
+            return MANHATTAN;
+        if (order == 2)
+            return EUCLIDEAN;
+        if (Double.isInfinite(order))
+            return CHEBYSHEV;
+        return new Minkowski(order);
+    }
+
+    /**
+     * Metric of the older boolean switch
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     * @return Manhattan or Euclidean metric
+     */
+    public static DistanceMetric of(boolean isManhattanRequired) {
+        return isManhattanRequired ? MANHATTAN : EUCLIDEAN;
+    }
+
+    /**
+     * Metric by name: "euclidean", "manhattan", "chebyshev" or "minkowski:p", for example "minkowski:3"
+     * @param name name of the metric, case is ignored
+     * @return metric
+     */
+    public static DistanceMetric parse(String name) {
+        String lowerName = name.trim().toLowerCase();
+        switch (lowerName) {
+            case "euclidean":
+                return EUCLIDEAN;
+            case "manhattan":
+                return MANHATTAN;
+            case "chebyshev":
+                return CHEBYSHEV;
+            default:
+                if (lowerName.startsWith("minkowski:"))
+                    return minkowski(Double.parseDouble(lowerName.substring("minkowski:".length())));
+                throw new IllegalArgumentException("Unknown metric " + name);
+        }
+    }
+
+    /**
+     * Distance in comparable form: larger distance always gives larger value
+     * @param dx difference on X-axis
+     * @param dy difference on Y-axis
+     * @return comparable distance
+     */
+    public abstract double comparableDistance(long dx, long dy);
+
+    /**
+     * Real distance
+     * @param dx difference on X-axis
+     * @param dy difference on Y-axis
+     * @return distance
+     */
+    public abstract double distance(long dx, long dy);
+
+    private static final class Euclidean extends DistanceMetric {
+        @Override
+        public double comparableDistance(long dx, long dy) {
+            return dx * dx + dy * dy;
+        }
+
+        @Override
+        public double distance(long dx, long dy) {
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+
+        @Override
+        public int findClosest(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+            int closest = 0;
+            long closestDistance = Long.MAX_VALUE;
+            for (int i = 0; i < interestPointsValue; i++) {
+                long dx = interestPointsX[i] - x;
+                long dy = interestPointsY[i] - y;
+                long distance = dx * dx + dy * dy;
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closest = i;
+                }
+            }
+            return closest;
+        }
+
+        @Override
+        public String toString() {
+            return "euclidean";
+        }
+    }
+
+    private static final class Manhattan extends DistanceMetric {
+        @Override
+        public double comparableDistance(long dx, long dy) {
+            return Math.abs(dx) + Math.abs(dy);
+        }
+
+        @Override
+        public double distance(long dx, long dy) {
+            return Math.abs(dx) + Math.abs(dy);
+        }
+
+        @Override
+        public int findClosest(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+            int closest = 0;
+            long closestDistance = Long.MAX_VALUE;
+            for (int i = 0; i < interestPointsValue; i++) {
+                long distance = Math.abs((long) interestPointsX[i] - x) + Math.abs((long) interestPointsY[i] - y);
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closest = i;
+                }
+            }
+            return closest;
+        }
+
+        @Override
+        public String toString() {
+            return "manhattan";
+        }
+    }
+
+    private static final class Chebyshev extends DistanceMetric {
+        @Override
+        public double comparableDistance(long dx, long dy) {
+            return Math.max(Math.abs(dx), Math.abs(dy));
+        }
+
+        @Override
+        public double distance(long dx, long dy) {
+            return Math.max(Math.abs(dx), Math.abs(dy));
+        }
+
+        @Override
+        public int findClosest(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+            int closest = 0;
+            long closestDistance = Long.MAX_VALUE;
+            for (int i = 0; i < interestPointsValue; i++) {
+                long distance = Math.max(Math.abs((long) interestPointsX[i] - x), Math.abs((long) interestPointsY[i] - y));
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closest = i;
+                }
+            }
+            return closest;
+        }
+
+        @Override
+        public String toString() {
+            return "chebyshev";
+        }
+    }
+
+    private static final class Minkowski extends DistanceMetric {
+        //  order of the metric
+        private final double order;
+
+        //  the same order as integer, 0 if it is fractional
+        private final int integerOrder;
+
+        private Minkowski(double order) {
+            this.order = order;
+            this.integerOrder = order == Math.rint(order) && order <= 16 ? (int) order : 0;
+        }
+
+        @Override
+        public double comparableDistance(long dx, long dy) {
+            return power(Math.abs(dx)) + power(Math.abs(dy));
+        }
+
+        @Override
+        public double distance(long dx, long dy) {
+            return Math.pow(comparableDistance(dx, dy), 1 / this.order);
+        }
+
+        @Override
+        public int findClosest(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+            //  integer order is resolved once into loop of multiplications, fractional one needs pow
+            return this.integerOrder > 0
+                    ? findClosestIntegerOrder(interestPointsX, interestPointsY, interestPointsValue, x, y)
+                    : findClosestFractionalOrder(interestPointsX, interestPointsY, interestPointsValue, x, y);
+        }
+
+        private int findClosestIntegerOrder(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+            int closest = 0;
+            double closestDistance = Double.MAX_VALUE;
+            for (int i = 0; i < interestPointsValue; i++) {
+                double dx = Math.abs(interestPointsX[i] - x);
+                double dy = Math.abs(interestPointsY[i] - y);
+                double powerX = dx;
+                double powerY = dy;
+                for (int k = 1; k < this.integerOrder; k++) {
+                    powerX *= dx;
+                    powerY *= dy;
+                }
+                double distance = powerX + powerY;
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closest = i;
+                }
+            }
+            return closest;
+        }
+
+        private int findClosestFractionalOrder(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+            int closest = 0;
+            double closestDistance = Double.MAX_VALUE;
+            for (int i = 0; i < interestPointsValue; i++) {
+                double distance = Math.pow(Math.abs(interestPointsX[i] - x), this.order)
+                        + Math.pow(Math.abs(interestPointsY[i] - y), this.order);
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closest = i;
+                }
+            }
+            return closest;
+        }
+
+        private double power(double value) {
+            if (this.integerOrder == 0)
+                return Math.pow(value, this.order);
+            double result = value;
+            for (int k = 1; k < this.integerOrder; k++)
+                result *= value;
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "minkowski:" + order;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package PixelByPixelMethod;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  Exact Euclidean feature transform: owner of every pixel and squared distance to it in O(P) for P pixels regardless
+ * of the amount of interest points (separable algorithm of Felzenszwalb and Huttenlocher). First pass goes over columns
+ * and finds for each pixel the closest interest point of its own column, second pass goes over rows and takes lower
+ * envelope of parabolas (x - column)^2 + columnDistance^2 of all columns. Both passes are split into bands computed in
+ * parallel. Envelope is built in integer arithmetic with (distance, index) compared as a pair, so on equal distance the
+ * interest point with lower index wins and labels are identical to Euclidean linear scan.
+ */
+public class EuclideanFeatureTransform {
+    //  largest side of the image, squared distances of larger images do not fit into int
+    public static final int MAX_IMAGE_SIZE = 32768;
+
+    //  column distance of pixel whose column has no interest point
+    private static final int NO_DISTANCE = Integer.MAX_VALUE;
+
+    //  interest points X and Y coordinates
+    private final int[] interestPointsX;
+    private final int[] interestPointsY;
+    private final int interestPointsValue;
+
+    //  side of the square image
+    private final int imageSize;
+
+    //  squared distance from each pixel to its owner, set by computeLabels
+    private int[] squaredDistances;
+
+    /**
+     * Constructor
+     * @param interestPointsX X coordinates of interest points, each must be inside of the image
+     * @param interestPointsY Y coordinates of interest points, each must be inside of the image
+     * @param interestPointsValue how many interest points there are
+     * @param imageSize side of the square image, at most MAX_IMAGE_SIZE
+     */
+    public EuclideanFeatureTransform(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int imageSize) {
+        if (interestPointsValue <= 0)
+            throw new IllegalArgumentException("Feature transform requires at least one interest point");
+        if (imageSize <= 0 || imageSize > MAX_IMAGE_SIZE)
+            throw new IllegalArgumentException("Image size must be in [1, " + MAX_IMAGE_SIZE + "], got " + imageSize);
+        this.interestPointsX = interestPointsX;
+        this.interestPointsY = interestPointsY;
+        this.interestPointsValue = interestPointsValue;
+        this.imageSize = imageSize;
+    }
+
+    /**
+     * build label image and distance field on the common fork-join pool
+     * @return index of the closest interest point for each pixel, pixel (x, y) is at y * imageSize + x
+     */
+    public int[] computeLabels() {
+        return computeLabels(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * build label image and distance field, both passes are split into bands executed in parallel
+     * @param executor executor that will run bands, null to compute in the calling thread
+     * @return index of the closest interest point for each pixel, pixel (x, y) is at y * imageSize + x
+     */
+    public int[] computeLabels(ExecutorService executor) {
+        int pixelsValue = this.imageSize * this.imageSize;
+
+        //  seed interest points, if several of them share pixel then the one with lower index stays
+        int[] seeds = new int[pixelsValue];
+        Arrays.fill(seeds, -1);
+        for (int i = this.interestPointsValue - 1; i >= 0; i--) {
+            if (this.interestPointsX[i] < 0 || this.interestPointsX[i] >= this.imageSize
+                    || this.interestPointsY[i] < 0 || this.interestPointsY[i] >= this.imageSize)
+                throw new IllegalArgumentException("Interest point " + i + " is outside of the image");
+            seeds[this.interestPointsY[i] * this.imageSize + this.interestPointsX[i]] = i;
+        }
+
+        //  closest interest point of the own column, columns are independent and split into bands
+        int[] columnDistances = new int[pixelsValue];
+        int[] columnOwners = new int[pixelsValue];
+        if (executor == null)
+            transformColumns(seeds, columnDistances, columnOwners, 0, this.imageSize);
+        else
+            ParallelTasks.runRowBands(executor, this.imageSize, ParallelTasks.defaultBands(),
+                    (fromColumn, toColumn) -> transformColumns(seeds, columnDistances, columnOwners, fromColumn, toColumn));
+
+        //  rows are independent, each row is read and written only by its own band, seeds are not needed anymore
+        int[] labels = seeds;
+        int[] squaredDistances = new int[pixelsValue];
+        if (executor == null)
+            transformRows(columnDistances, columnOwners, labels, squaredDistances, 0, this.imageSize);
+        else
+            ParallelTasks.runRowBands(executor, this.imageSize, ParallelTasks.defaultBands(),
+                    (fromRow, toRow) -> transformRows(columnDistances, columnOwners, labels, squaredDistances, fromRow, toRow));
+        this.squaredDistances = squaredDistances;
+        return labels;
+    }
+
+    /**
+     *  find closest interest point of the own column for pixels of band of columns: one sweep down keeps the last
+     * interest point above, one sweep up compares it with the first one below. Sweeps go row by row, so memory is read
+     * in its order.
+     * @param seeds interest point with the lowest index of each pixel, -1 for pixels without interest point
+     * @param columnDistances storage for vertical distance to the closest interest point of the column
+     * @param columnOwners storage for index of that interest point, the lower one on equal distance
+     * @param fromColumn first column of the band (inclusive)
+     * @param toColumn last column of the band (exclusive)
+     */
+    private void transformColumns(int[] seeds, int[] columnDistances, int[] columnOwners, int fromColumn, int toColumn) {
+        int width = toColumn - fromColumn;
+        int[] nearRows = new int[width];
+        int[] nearOwners = new int[width];
+
+        Arrays.fill(nearOwners, -1);
+        for (int y = 0; y < this.imageSize; y++) {
+            int rowOffset = y * this.imageSize;
+            for (int x = fromColumn; x < toColumn; x++) {
+                int pixel = rowOffset + x;
+                if (seeds[pixel] >= 0) {
+                    nearRows[x - fromColumn] = y;
+                    nearOwners[x - fromColumn] = seeds[pixel];
+                }
+                int owner = nearOwners[x - fromColumn];
+                columnOwners[pixel] = owner;
+                columnDistances[pixel] = owner < 0 ? NO_DISTANCE : y - nearRows[x - fromColumn];
+            }
+        }
+
+        Arrays.fill(nearOwners, -1);
+        for (int y = this.imageSize - 1; y >= 0; y--) {
+            int rowOffset = y * this.imageSize;
+            for (int x = fromColumn; x < toColumn; x++) {
+                int pixel = rowOffset + x;
+                if (seeds[pixel] >= 0) {
+                    nearRows[x - fromColumn] = y;
+                    nearOwners[x - fromColumn] = seeds[pixel];
+                }
+                int owner = nearOwners[x - fromColumn];
+                if (owner < 0)
+                    continue;
+                int distance = nearRows[x - fromColumn] - y;
+                if (distance < columnDistances[pixel] || (distance == columnDistances[pixel] && owner < columnOwners[pixel])) {
+                    columnDistances[pixel] = distance;
+                    columnOwners[pixel] = owner;
+                }
+            }
+        }
+    }
+
+    /**
+     *  find owner of each pixel of band of rows as lower envelope of parabolas of columns. Parabola of column c is
+     * (x - c)^2 + g^2 where g is column distance of the row, columns are added from left to right and each one wins
+     * over the previous ones from its switch column onwards, parabolas that never win are dropped from the envelope.
+     * @param columnDistances vertical distance to the closest interest point of the column
+     * @param columnOwners index of that interest point
+     * @param labels storage for index of the closest interest point of each pixel
+     * @param squaredDistances storage for squared distance to it
+     * @param fromRow first row of the band (inclusive)
+     * @param toRow last row of the band (exclusive)
+     */
+    private void transformRows(int[] columnDistances, int[] columnOwners, int[] labels, int[] squaredDistances,
+                               int fromRow, int toRow) {
+        //  columns of parabolas forming the envelope and first pixel where each of them wins
+        int[] envelope = new int[this.imageSize];
+        int[] starts = new int[this.imageSize];
+
+        for (int y = fromRow; y < toRow; y++) {
+            int rowOffset = y * this.imageSize;
+            int top = -1;
+            for (int column = 0; column < this.imageSize; column++) {
+                if (columnDistances[rowOffset + column] == NO_DISTANCE)
+                    continue;
+                int start = Integer.MIN_VALUE;
+                while (top >= 0) {
+                    start = switchColumn(columnDistances, columnOwners, rowOffset, envelope[top], column);
+                    if (start > starts[top])
+                        break;
+                    top--;
+                    start = Integer.MIN_VALUE;
+                }
+                envelope[++top] = column;
+                starts[top] = start;
+            }
+
+            int current = 0;
+            for (int x = 0; x < this.imageSize; x++) {
+                while (current < top && starts[current + 1] <= x)
+                    current++;
+                int column = envelope[current];
+                long dx = x - column;
+                long dy = columnDistances[rowOffset + column];
+                labels[rowOffset + x] = columnOwners[rowOffset + column];
+                squaredDistances[rowOffset + x] = (int) (dx * dx + dy * dy);
+            }
+        }
+    }
+
+    /**
+     *  find first pixel of the row where parabola of the right column wins over parabola of the left one. Difference
+     * of the parabolas is linear in x, so the right one wins strictly after their crossing, exactly at the crossing the
+     * lower index wins.
+     * @param columnDistances vertical distance to the closest interest point of the column
+     * @param columnOwners index of that interest point
+     * @param rowOffset index of the first pixel of the row
+     * @param left column of the left parabola
+     * @param right column of the right parabola, greater than left
+     * @return first column where the right parabola wins, may lie outside of the image
+     */
+    private static int switchColumn(int[] columnDistances, int[] columnOwners, int rowOffset, int left, int right) {
+        long leftDistance = columnDistances[rowOffset + left];
+        long rightDistance = columnDistances[rowOffset + right];
+        //  left - right = 2 * (right - left) * x - crossing
+        long crossing = (long) right * right - (long) left * left + rightDistance * rightDistance - leftDistance * leftDistance;
+        long slope = 2L * (right - left);
+        long start = Math.floorDiv(crossing, slope) + 1;
+        if (Math.floorMod(crossing, slope) == 0 && columnOwners[rowOffset + right] < columnOwners[rowOffset + left])
+            start--;
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE, start));
+    }
+
+    //  getters
+
+    /**
+     * @return squared distance from each pixel to its owner found by the last computeLabels, same layout as labels
+     */
+    public int[] getSquaredDistances() {
+        return squaredDistances;
+    }
+
+    /**
+     * Distance from the pixel to its owner found by the last computeLabels
+     * @param x column of the pixel
+     * @param y row of the pixel
+     * @return Euclidean distance
+     */
+    public double getDistance(int x, int y) {
+        return Math.sqrt(this.squaredDistances[y * this.imageSize + x]);
+    }
+
+    public int getImageSize() {
+        return imageSize;
+    }
+}
@@ -0,0 +1,333 @@
+package PixelByPixelMethod;
+
+import DelaunayMethod.DelaunayTriangulation;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ *  Pixel-by-pixel diagram with Euclidean distance that supports insertion, removal and moving of interest points
+ * without recalculation of the whole image. Owner of each pixel is kept in label raster, neighbourhoods of interest
+ * points are kept in dynamic Delaunay triangulation:
+ *  - new interest point can take only pixels of its own new cell, so only pixels inside of bounding box of that cell
+ *    are compared against their current owner;
+ *  - pixels of removed interest point go to its former neighbours, so only pixels inside of bounding box of its old
+ *    cell are reviewed, and only against those neighbours.
+ * On equal distance the interest point with lower index wins, same as in linear scan, so the raster is always
+ * identical to the full recalculation. Interest points must have unique coordinates.
+ */
+public class IncrementalRaster {
+    //  side of the square image
+    private final int imageSize;
+
+    //  interest points X and Y coordinates and colors, index of the point is its position in arrays
+    private int[] interestPointsX;
+    private int[] interestPointsY;
+    private int[] interestPointsColors;
+
+    //  occupied coordinates packed into one number
+    private final HashSet<Long> occupied = new HashSet<>();
+
+    //  neighbourhoods of interest points
+    private final DelaunayTriangulation triangulation;
+
+    //  index of the closest interest point and its color for each pixel, pixel (x, y) is at y * imageSize + x
+    private final int[] labels;
+    private final int[] pixels;
+
+    //  bounding box of pixels reviewed by the last edit: first column, first row, last column, last row (inclusive)
+    private final int[] changedRegion = new int[4];
+
+    //  scratch storage for neighbours of interest points
+    private int[] neighbourBuffer = new int[16];
+
+    /**
+     * Constructor, builds the whole image once
+     * @param interestPointsX X coordinates of interest points
+     * @param interestPointsY Y coordinates of interest points
+     * @param interestPointsColors colors of interest points
+     * @param interestPointsValue how many interest points there are
+     * @param imageSize side of the square image
+     */
+    public IncrementalRaster(int[] interestPointsX, int[] interestPointsY, int[] interestPointsColors, int interestPointsValue, int imageSize) {
+        this.imageSize = imageSize;
+        this.interestPointsX = Arrays.copyOf(interestPointsX, interestPointsValue);
+        this.interestPointsY = Arrays.copyOf(interestPointsY, interestPointsValue);
+        this.interestPointsColors = Arrays.copyOf(interestPointsColors, interestPointsValue);
+        for (int i = 0; i < interestPointsValue; i++) {
+            checkInside(interestPointsX[i], interestPointsY[i]);
+            if (!this.occupied.add(pack(interestPointsX[i], interestPointsY[i])))
+                throw new IllegalArgumentException("Several interest points share coordinates (" + interestPointsX[i] + ", " + interestPointsY[i] + ")");
+        }
+
+        this.triangulation = DelaunayTriangulation.fromInterestPoints(interestPointsX, interestPointsY, interestPointsValue, imageSize);
+
+        //  initial image via spatial index
+        NearestSiteGrid siteGrid = new NearestSiteGrid(this.interestPointsX, this.interestPointsY, interestPointsValue, imageSize);
+        this.labels = new int[imageSize * imageSize];
+        this.pixels = new int[imageSize * imageSize];
+        for (int y = 0; y < imageSize; y++)
+            for (int x = 0; x < imageSize; x++) {
+                int closest = siteGrid.findClosest(x, y, false);
+                this.labels[y * imageSize + x] = closest;
+                this.pixels[y * imageSize + x] = this.interestPointsColors[closest] & 0xFFFFFF;
+            }
+        setChangedRegion(0, 0, imageSize - 1, imageSize - 1);
+    }
+
+    /**
+     * Add interest point, only pixels inside of its new cell are repainted
+     * @param x X coordinate of the interest point
+     * @param y Y coordinate of the interest point
+     * @param color color of the interest point
+     * @return index of the new interest point
+     */
+    public int insertInterestPoint(int x, int y, int color) {
+        checkFree(x, y);
+        int interestPoint = this.triangulation.insertSite(x, y);
+        if (interestPoint >= this.interestPointsX.length) {
+            int capacity = Math.max(interestPoint + 1, this.interestPointsX.length * 2);
+            this.interestPointsX = Arrays.copyOf(this.interestPointsX, capacity);
+            this.interestPointsY = Arrays.copyOf(this.interestPointsY, capacity);
+            this.interestPointsColors = Arrays.copyOf(this.interestPointsColors, capacity);
+        }
+        this.interestPointsX[interestPoint] = x;
+        this.interestPointsY[interestPoint] = y;
+        this.interestPointsColors[interestPoint] = color;
+        this.occupied.add(pack(x, y));
+
+        claimCell(interestPoint);
+        return interestPoint;
+    }
+
+    /**
+     * Remove interest point, only pixels of its old cell are repainted
+     * @param interestPoint index of the interest point
+     */
+    public void removeInterestPoint(int interestPoint) {
+        checkPresent(interestPoint);
+        //  neighbours are found by walking around the interest point, compressed adjacency would be rebuilt as a whole
+        int[] candidates = this.triangulation.getNeighbours(interestPoint);
+        if (candidates.length == 0)
+            throw new IllegalStateException("The last interest point cannot be removed");
+
+        int[] box = boundingBox(this.triangulation.getCell(interestPoint));
+        this.triangulation.removeSite(interestPoint);
+        this.occupied.remove(pack(this.interestPointsX[interestPoint], this.interestPointsY[interestPoint]));
+
+        releaseCell(interestPoint, box, candidates);
+        setChangedRegion(box[0], box[1], box[2], box[3]);
+    }
+
+    /**
+     * Move interest point to another position, it keeps its index and color. Pixels of its old cell are given to
+     * former neighbours, then pixels of its new cell are taken back.
+     * @param interestPoint index of the interest point
+     * @param x new X coordinate of the interest point
+     * @param y new Y coordinate of the interest point
+     */
+    public void moveInterestPoint(int interestPoint, int x, int y) {
+        checkPresent(interestPoint);
+        if (x == this.interestPointsX[interestPoint] && y == this.interestPointsY[interestPoint])
+            return;
+        checkFree(x, y);
+
+        int[] box = boundingBox(this.triangulation.getCell(interestPoint));
+        int[] candidates = this.triangulation.getNeighbours(interestPoint);
+        this.triangulation.moveSite(interestPoint, x, y);
+        this.occupied.remove(pack(this.interestPointsX[interestPoint], this.interestPointsY[interestPoint]));
+        this.occupied.add(pack(x, y));
+        this.interestPointsX[interestPoint] = x;
+        this.interestPointsY[interestPoint] = y;
+
+        //  the only interest point owns every pixel wherever it is
+        if (candidates.length > 0)
+            releaseCell(interestPoint, box, candidates);
+        claimCell(interestPoint);
+        setChangedRegion(Math.min(box[0], this.changedRegion[0]), Math.min(box[1], this.changedRegion[1]),
+                Math.max(box[2], this.changedRegion[2]), Math.max(box[3], this.changedRegion[3]));
+    }
+
+    /**
+     * Attach interest point that is already present in triangulation: pixels of its bounding box which are closer to
+     * it than to their current owner are taken
+     * @param interestPoint index of the interest point
+     */
+    private void claimCell(int interestPoint) {
+        int[] box = boundingBox(this.triangulation.getCell(interestPoint));
+        setChangedRegion(box[0], box[1], box[2], box[3]);
+
+        int pointX = this.interestPointsX[interestPoint];
+        int pointY = this.interestPointsY[interestPoint];
+        for (int y = box[1]; y <= box[3]; y++)
+            for (int x = box[0]; x <= box[2]; x++) {
+                int pixel = y * this.imageSize + x;
+                int owner = this.labels[pixel];
+                long distance = squaredDistance(pointX, pointY, x, y);
+                long ownerDistance = squaredDistance(this.interestPointsX[owner], this.interestPointsY[owner], x, y);
+                if (distance < ownerDistance || (distance == ownerDistance && interestPoint < owner)) {
+                    this.labels[pixel] = interestPoint;
+                    this.pixels[pixel] = this.interestPointsColors[interestPoint] & 0xFFFFFF;
+                }
+            }
+    }
+
+    /**
+     * Give pixels of interest point that has left its old cell to former neighbours
+     * @param interestPoint index of the interest point
+     * @param box bounding box of its old cell
+     * @param candidates its neighbours before it has left the cell
+     */
+    private void releaseCell(int interestPoint, int[] box, int[] candidates) {
+        for (int y = box[1]; y <= box[3]; y++)
+            for (int x = box[0]; x <= box[2]; x++) {
+                int pixel = y * this.imageSize + x;
+                if (this.labels[pixel] != interestPoint)
+                    continue;
+
+                //  the closest remaining interest point is always one of former neighbours
+                int closest = candidates[0];
+                long closestDistance = squaredDistance(this.interestPointsX[closest], this.interestPointsY[closest], x, y);
+                for (int i = 1; i < candidates.length; i++) {
+                    long distance = squaredDistance(this.interestPointsX[candidates[i]], this.interestPointsY[candidates[i]], x, y);
+                    if (distance < closestDistance || (distance == closestDistance && candidates[i] < closest)) {
+                        closest = candidates[i];
+                        closestDistance = distance;
+                    }
+                }
+                closest = resolveTie(closest, closestDistance, x, y);
+
+                this.labels[pixel] = closest;
+                this.pixels[pixel] = this.interestPointsColors[closest] & 0xFFFFFF;
+            }
+    }
+
+    /**
+     *  Find interest point with the lowest index among all points lying at the same distance from the pixel as the
+     * closest one. Such points lie on an empty circle around the pixel, so they are connected by Delaunay edges and
+     * are found by walking over neighbours that keep the same distance.
+     * @param closest index of the closest interest point found among candidates
+     * @param closestDistance squared distance from the pixel to it
+     * @param x position of the pixel on X-axis
+     * @param y position of the pixel on Y-axis
+     * @return index of the owner of the pixel
+     */
+    private int resolveTie(int closest, long closestDistance, int x, int y) {
+        int owner = closest;
+        int[] tied = null;
+        int tiedSize = 0;
+        int current = closest;
+        for (int head = -1; ; head++) {
+            if (head >= 0) {
+                if (head >= tiedSize)
+                    return owner;
+                current = tied[head];
+            }
+
+            int count = this.triangulation.getNeighbours(current, this.neighbourBuffer);
+            if (count > this.neighbourBuffer.length) {
+                this.neighbourBuffer = new int[count * 2];
+                count = this.triangulation.getNeighbours(current, this.neighbourBuffer);
+            }
+            for (int i = 0; i < count; i++) {
+                int neighbour = this.neighbourBuffer[i];
+                if (neighbour == closest || squaredDistance(this.interestPointsX[neighbour], this.interestPointsY[neighbour], x, y) != closestDistance)
+                    continue;
+
+                //  tie is rare, storage for it is allocated only when it happens
+                if (tied == null)
+                    tied = new int[8];
+                boolean isKnown = false;
+                for (int j = 0; j < tiedSize && !isKnown; j++)
+                    isKnown = tied[j] == neighbour;
+                if (isKnown)
+                    continue;
+                if (tiedSize == tied.length)
+                    tied = Arrays.copyOf(tied, tiedSize * 2);
+                tied[tiedSize++] = neighbour;
+                owner = Math.min(owner, neighbour);
+            }
+            if (tied == null)
+                return owner;
+        }
+    }
+
+    /**
+     * Pixels that may lie inside of the cell, with one pixel margin against rounding
+     * @param cell interleaved X and Y coordinates of cell vertices
+     * @return first column, first row, last column, last row (inclusive)
+     */
+    private int[] boundingBox(double[] cell) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < cell.length; i += 2) {
+            minX = Math.min(minX, cell[i]);
+            maxX = Math.max(maxX, cell[i]);
+            minY = Math.min(minY, cell[i + 1]);
+            maxY = Math.max(maxY, cell[i + 1]);
+        }
+        return new int[]{
+                Math.max(0, (int) Math.floor(minX) - 1), Math.max(0, (int) Math.floor(minY) - 1),
+                Math.min(this.imageSize - 1, (int) Math.ceil(maxX) + 1), Math.min(this.imageSize - 1, (int) Math.ceil(maxY) + 1)
+        };
+    }
+
+    private void setChangedRegion(int fromX, int fromY, int toX, int toY) {
+        this.changedRegion[0] = fromX;
+        this.changedRegion[1] = fromY;
+        this.changedRegion[2] = toX;
+        this.changedRegion[3] = toY;
+    }
+
+    private void checkInside(int x, int y) {
+        if (x < 0 || y < 0 || x >= this.imageSize || y >= this.imageSize)
+            throw new IllegalArgumentException("Interest point (" + x + ", " + y + ") is outside of the image");
+    }
+
+    private void checkPresent(int interestPoint) {
+        if (!this.triangulation.isSitePresent(interestPoint))
+            throw new IllegalArgumentException("Interest point " + interestPoint + " is not present");
+    }
+
+    private void checkFree(int x, int y) {
+        checkInside(x, y);
+        if (this.occupied.contains(pack(x, y)))
+            throw new IllegalArgumentException("Coordinates (" + x + ", " + y + ") are taken by another interest point");
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static long squaredDistance(int x1, int y1, int x2, int y2) {
+        long dx = x1 - x2;
+        long dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+
+    //  getters
+
+    /**
+     * @return index of the closest interest point for each pixel, pixel (x, y) is at y * imageSize + x
+     */
+    public int[] getLabels() {
+        return labels;
+    }
+
+    /**
+     * @return color of each pixel in the same layout as labels
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return bounding box of pixels reviewed by the last edit: first column, first row, last column, last row
+     */
+    public int[] getChangedRegion() {
+        return changedRegion.clone();
+    }
+
+    public int getImageSize() {
+        return imageSize;
+    }
+}
@@ -0,0 +1,167 @@
+package PixelByPixelMethod;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *  Jump Flooding Algorithm for building nearest-site label image. Each interest point is seeded into its pixel, then
+ * log2(size) passes with halving step propagate labels: every pixel looks at 8 pixels at the distance of the step and
+ * keeps the closest interest point among their labels. Total work is O(P log N) for P pixels regardless of the amount
+ * of interest points, every pass is data-parallel over rows. Result is approximate, rare wrong pixels appear near
+ * cell borders; optional correction pass repeats one-pixel steps until no label improves, which removes nearly all of
+ * them. On equal distance the interest point with lower index wins, same as in linear scan.
+ */
+public class JumpFlooding {
+    //  label of the pixel that has not been reached by any interest point yet
+    public static final int NO_LABEL = -1;
+
+    //  interest points X and Y coordinates
+    private final int[] interestPointsX;
+    private final int[] interestPointsY;
+    private final int interestPointsValue;
+
+    //  side of the square image
+    private final int imageSize;
+
+    /**
+     * Constructor
+     * @param interestPointsX X coordinates of interest points, each must be inside of the image
+     * @param interestPointsY Y coordinates of interest points, each must be inside of the image
+     * @param interestPointsValue how many interest points there are
+     * @param imageSize side of the square image
+     */
+    public JumpFlooding(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int imageSize) {
+        this.interestPointsX = interestPointsX;
+        this.interestPointsY = interestPointsY;
+        this.interestPointsValue = interestPointsValue;
+        this.imageSize = imageSize;
+    }
+
+    /**
+     * build label image on the common fork-join pool
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     * @param isCorrectionRequired true if correction passes must be run after jump flooding
+     * @return index of the closest interest point for each pixel, pixel (x, y) is at y * imageSize + x
+     */
+    public int[] computeLabels(boolean isManhattanRequired, boolean isCorrectionRequired) {
+        return computeLabels(DistanceMetric.of(isManhattanRequired), isCorrectionRequired, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * build label image on the common fork-join pool
+     * @param metric distance used for finding the closest interest point
+     * @param isCorrectionRequired true if correction passes must be run after jump flooding
+     * @return index of the closest interest point for each pixel, pixel (x, y) is at y * imageSize + x
+     */
+    public int[] computeLabels(DistanceMetric metric, boolean isCorrectionRequired) {
+        return computeLabels(metric, isCorrectionRequired, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * build label image, each pass is split into row bands executed in parallel
+     * @param metric distance used for finding the closest interest point
+     * @param isCorrectionRequired true if correction passes must be run after jump flooding
+     * @param executor executor that will run row bands
+     * @return index of the closest interest point for each pixel, pixel (x, y) is at y * imageSize + x
+     */
+    public int[] computeLabels(DistanceMetric metric, boolean isCorrectionRequired, ExecutorService executor) {
+        int[] source = new int[this.imageSize * this.imageSize];
+        int[] target = new int[this.imageSize * this.imageSize];
+        Arrays.fill(source, NO_LABEL);
+
+        //  seed interest points, if several of them share pixel then the one with lower index stays
+        for (int i = this.interestPointsValue - 1; i >= 0; i--) {
+            if (this.interestPointsX[i] < 0 || this.interestPointsX[i] >= this.imageSize
+                    || this.interestPointsY[i] < 0 || this.interestPointsY[i] >= this.imageSize)
+                throw new IllegalArgumentException("Interest point " + i + " is outside of the image");
+            source[this.interestPointsY[i] * this.imageSize + this.interestPointsX[i]] = i;
+        }
+
+        //  start from the largest power of two below the image size (so steps together cover the whole image) and
+        // halve it on each pass
+        int step = Integer.highestOneBit(Math.max(1, this.imageSize - 1));
+        for (; step >= 1; step /= 2) {
+            flood(source, target, step, metric, executor, null);
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+
+        //  repeat one-pixel steps until labels stop improving
+        if (isCorrectionRequired) {
+            AtomicBoolean isChanged = new AtomicBoolean(true);
+            while (isChanged.get()) {
+                isChanged.set(false);
+                flood(source, target, 1, metric, executor, isChanged);
+                int[] swap = source;
+                source = target;
+                target = swap;
+            }
+        }
+
+        return source;
+    }
+
+    /**
+     * one pass of jump flooding: each pixel picks the closest interest point among labels of itself and 8 pixels
+     * located at the distance of the step
+     * @param source labels before the pass
+     * @param target labels after the pass
+     * @param step distance to the reviewed neighbours
+     * @param metric distance used for finding the closest interest point
+     * @param executor executor that will run row bands
+     * @param isChanged flag set when any label was changed, null if tracking is not required
+     */
+    private void flood(int[] source, int[] target, int step, DistanceMetric metric, ExecutorService executor,
+                       AtomicBoolean isChanged) {
+        ParallelTasks.runRowBands(executor, this.imageSize, ParallelTasks.defaultBands(), (fromRow, toRow) -> {
+            boolean isBandChanged = false;
+            for (int currentPointY = fromRow; currentPointY < toRow; currentPointY++)
+                for (int currentPointX = 0; currentPointX < this.imageSize; currentPointX++) {
+                    int pixel = currentPointY * this.imageSize + currentPointX;
+                    int closest = source[pixel];
+                    double closestDistance = closest == NO_LABEL ? Double.MAX_VALUE
+                            : distance(closest, currentPointX, currentPointY, metric);
+
+                    for (int neighbourY = currentPointY - step; neighbourY <= currentPointY + step; neighbourY += step) {
+                        if (neighbourY < 0 || neighbourY >= this.imageSize)
+                            continue;
+                        for (int neighbourX = currentPointX - step; neighbourX <= currentPointX + step; neighbourX += step) {
+                            if (neighbourX < 0 || neighbourX >= this.imageSize)
+                                continue;
+
+                            int candidate = source[neighbourY * this.imageSize + neighbourX];
+                            if (candidate == NO_LABEL || candidate == closest)
+                                continue;
+
+                            double candidateDistance = distance(candidate, currentPointX, currentPointY, metric);
+                            if (candidateDistance < closestDistance || (candidateDistance == closestDistance && candidate < closest)) {
+                                closest = candidate;
+                                closestDistance = candidateDistance;
+                            }
+                        }
+                    }
+
+                    isBandChanged |= closest != source[pixel];
+                    target[pixel] = closest;
+                }
+
+            if (isChanged != null && isBandChanged)
+                isChanged.set(true);
+        });
+    }
+
+    /**
+     * distance between interest point and pixel in comparable form of the metric
+     * @param interestPoint index of the interest point
+     * @param x position of the pixel on X-axis
+     * @param y position of the pixel on Y-axis
+     * @param metric distance used for finding the closest interest point
+     * @return comparable distance
+     */
+    private double distance(int interestPoint, int x, int y, DistanceMetric metric) {
+        return metric.comparableDistance((long) this.interestPointsX[interestPoint] - x, (long) this.interestPointsY[interestPoint] - y);
+    }
+}
@@ -0,0 +1,223 @@
+package PixelByPixelMethod;
+
+/**
+ *  Index of the closest interest point of every pixel, stored row by row in the smallest cell that holds every index:
+ * byte for up to 256 interest points, short for up to 65536 of them, int otherwise. Cells are read as unsigned, so a
+ * diagram of 200 interest points takes one byte per pixel instead of three bytes of RGB, and the owner of a pixel
+ * does not depend on colors being unique.
+ */
+public abstract class LabelRaster {
+    private final int width;
+    private final int height;
+
+    private LabelRaster(int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Unsupported raster size " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Create raster with the smallest cells fitting all labels, all cells are 0
+     * @param width width of the raster in pixels
+     * @param height height of the raster in pixels
+     * @param interestPointsValue how many interest points there are, labels are from 0 to it exclusive
+     * @return empty raster
+     */
+    public static LabelRaster create(int width, int height, int interestPointsValue) {
+        switch (bytesPerLabel(interestPointsValue)) {
+            case 1:
+                return new ByteLabels(width, height);
+            case 2:
+                return new ShortLabels(width, height);
+            default:
+                return new IntLabels(width, height);
+        }
+    }
+
+    /**
+     * Size of the smallest cell fitting all labels
+     * @param interestPointsValue how many interest points there are
+     * @return 1, 2 or 4 bytes
+     */
+    public static int bytesPerLabel(int interestPointsValue) {
+        if (interestPointsValue <= 0)
+            throw new IllegalArgumentException("At least one interest point is required");
+        if (interestPointsValue <= 1 << 8)
+            return 1;
+        if (interestPointsValue <= 1 << 16)
+            return 2;
+        return 4;
+    }
+
+    /**
+     * @param x column of the pixel
+     * @param y row of the pixel
+     * @return label of the pixel
+     */
+    public abstract int get(int x, int y);
+
+    /**
+     * @param x column of the pixel
+     * @param y row of the pixel
+     * @param label new label of the pixel
+     */
+    public abstract void set(int x, int y, int label);
+
+    /**
+     * Copy rows of int labels into the raster
+     * @param labels labels, row r of them starts at r * width
+     * @param fromRow first row of the raster to fill
+     * @param rowCount amount of rows to copy
+     */
+    public abstract void setRows(int[] labels, int fromRow, int rowCount);
+
+    /**
+     * Copy one row of the raster into int labels
+     * @param y row of the raster
+     * @param labels destination, at least width long
+     */
+    public abstract void getRow(int y, int[] labels);
+
+    /**
+     * @return size of one cell in bytes
+     */
+    public abstract int getBytesPerLabel();
+
+    int index(int x, int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height)
+            throw new IndexOutOfBoundsException("Pixel " + x + ", " + y + " is outside of " + this.width + "x" + this.height + " raster");
+        return y * this.width + x;
+    }
+
+    void checkRows(int fromRow, int rowCount) {
+        if (fromRow < 0 || rowCount < 0 || fromRow + rowCount > this.height)
+            throw new IndexOutOfBoundsException("Rows " + fromRow + " to " + (fromRow + rowCount) + " are outside of " + this.height + " rows");
+    }
+
+    //  getters
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private static final class ByteLabels extends LabelRaster {
+        private final byte[] labels;
+
+        private ByteLabels(int width, int height) {
+            super(width, height);
+            this.labels = new byte[width * height];
+        }
+
+        @Override
+        public int get(int x, int y) {
+            return this.labels[index(x, y)] & 0xFF;
+        }
+
+        @Override
+        public void set(int x, int y, int label) {
+            this.labels[index(x, y)] = (byte) label;
+        }
+
+        @Override
+        public void setRows(int[] labels, int fromRow, int rowCount) {
+            checkRows(fromRow, rowCount);
+            int offset = fromRow * getWidth();
+            for (int i = 0; i < rowCount * getWidth(); i++)
+                this.labels[offset + i] = (byte) labels[i];
+        }
+
+        @Override
+        public void getRow(int y, int[] labels) {
+            checkRows(y, 1);
+            int offset = y * getWidth();
+            for (int x = 0; x < getWidth(); x++)
+                labels[x] = this.labels[offset + x] & 0xFF;
+        }
+
+        @Override
+        public int getBytesPerLabel() {
+            return 1;
+        }
+    }
+
+    private static final class ShortLabels extends LabelRaster {
+        private final short[] labels;
+
+        private ShortLabels(int width, int height) {
+            super(width, height);
+            this.labels = new short[width * height];
+        }
+
+        @Override
+        public int get(int x, int y) {
+            return this.labels[index(x, y)] & 0xFFFF;
+        }
+
+        @Override
+        public void set(int x, int y, int label) {
+            this.labels[index(x, y)] = (short) label;
+        }
+
+        @Override
+        public void setRows(int[] labels, int fromRow, int rowCount) {
+            checkRows(fromRow, rowCount);
+            int offset = fromRow * getWidth();
+            for (int i = 0; i < rowCount * getWidth(); i++)
+                this.labels[offset + i] = (short) labels[i];
+        }
+
+        @Override
+        public void getRow(int y, int[] labels) {
+            checkRows(y, 1);
+            int offset = y * getWidth();
+            for (int x = 0; x < getWidth(); x++)
+                labels[x] = this.labels[offset + x] & 0xFFFF;
+        }
+
+        @Override
+        public int getBytesPerLabel() {
+            return 2;
+        }
+    }
+
+    private static final class IntLabels extends LabelRaster {
+        private final int[] labels;
+
+        private IntLabels(int width, int height) {
+            super(width, height);
+            this.labels = new int[width * height];
+        }
+
+        @Override
+        public int get(int x, int y) {
+            return this.labels[index(x, y)];
+        }
+
+        @Override
+        public void set(int x, int y, int label) {
+            this.labels[index(x, y)] = label;
+        }
+
+        @Override
+        public void setRows(int[] labels, int fromRow, int rowCount) {
+            checkRows(fromRow, rowCount);
+            System.arraycopy(labels, 0, this.labels, fromRow * getWidth(), rowCount * getWidth());
+        }
+
+        @Override
+        public void getRow(int y, int[] labels) {
+            checkRows(y, 1);
+            System.arraycopy(this.labels, y * getWidth(), labels, 0, getWidth());
+        }
+
+        @Override
+        public int getBytesPerLabel() {
+            return 4;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package PixelByPixelMethod;
+
+import Metrics.Counter;
+import Metrics.Metrics;
+import Metrics.Phase;
+import Sites.SiteGrid;
+import Sites.SiteStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.DoubleAccumulator;
+
+/**
+ *  Lloyd relaxation towards centroidal Voronoi tessellation on the pixel grid. One iteration assigns every pixel to the
+ * closest site (Euclidean metric, lower index on equal distance), then sums coordinates of pixels of each site and
+ * moves each site to the centroid of its pixels. Search of the closest site starts from the owner the pixel had on the
+ * previous iteration, sites move little between iterations, so its distance bounds the grid search to the closest
+ * cells right away. Sums are kept in a few sets of per-site accumulators, each taking its own group of rows; there are
+ * never more sets than workers or than fit into a small part of a pass over pixels, so memory of accumulators and
+ * their merge over ranges of sites stay below the cost of the pixel pass. Sites keep fractional positions, cells of
+ * sites owning no pixel do not move. Arrays used by iterations are allocated once, except the grid over positions.
+ */
+public class LloydRelaxation {
+    //  accumulator sets are added only while each of them covers at least this many pixels per site
+    private static final int PIXELS_PER_ACCUMULATED_SITE = 16;
+
+    private final int sitesValue;
+    private final int imageSize;
+
+    //  current positions of sites
+    private final double[] sitesX;
+    private final double[] sitesY;
+
+    //  owner of each pixel found on the last iteration, -1 before the first one
+    private final int[] labels;
+
+    //  coordinate sums and pixel counts of each site, one set per group of rows
+    private final long[][] setSumsX;
+    private final long[][] setSumsY;
+    private final int[][] setCounts;
+
+    //  executor computing bands of rows and ranges of sites, null to compute in the calling thread
+    private ExecutorService executor = ForkJoinPool.commonPool();
+
+    private int iterationsValue;
+
+    /**
+     * Constructor, arrays are copied
+     * @param sitesX X coordinates of sites, each must be inside of [0, imageSize)
+     * @param sitesY Y coordinates of sites, each must be inside of [0, imageSize)
+     * @param sitesValue how many sites there are
+     * @param imageSize side of the square image
+     */
+    public LloydRelaxation(double[] sitesX, double[] sitesY, int sitesValue, int imageSize) {
+        if (sitesValue <= 0 || imageSize <= 0)
+            throw new IllegalArgumentException("At least one site and positive image size are required");
+        for (int i = 0; i < sitesValue; i++)
+            if (!(sitesX[i] >= 0 && sitesX[i] < imageSize && sitesY[i] >= 0 && sitesY[i] < imageSize))
+                throw new IllegalArgumentException("Site " + i + " is outside of the image");
+
+        this.sitesValue = sitesValue;
+        this.imageSize = imageSize;
+        this.sitesX = Arrays.copyOf(sitesX, sitesValue);
+        this.sitesY = Arrays.copyOf(sitesY, sitesValue);
+        this.labels = new int[imageSize * imageSize];
+        Arrays.fill(this.labels, -1);
+
+        long pixelsValue = (long) imageSize * imageSize;
+        int sets = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                pixelsValue / ((long) PIXELS_PER_ACCUMULATED_SITE * sitesValue)));
+        this.setSumsX = new long[sets][sitesValue];
+        this.setSumsY = new long[sets][sitesValue];
+        this.setCounts = new int[sets][sitesValue];
+    }
+
+    /**
+     * Create engine over sites of the store, positions are copied once from the backing arrays of the store
+     * @param siteStore sites, each must be inside of the image
+     * @param imageSize side of the square image
+     * @return engine, site indexes match site IDs
+     */
+    public static LloydRelaxation fromStore(SiteStore siteStore, int imageSize) {
+        return new LloydRelaxation(siteStore.getSitesX(), siteStore.getSitesY(), siteStore.getSitesValue(), imageSize);
+    }
+
+    /**
+     * Iterate until no site moves farther than the threshold or iterations are over
+     * @param maxIterations largest amount of iterations
+     * @param threshold distance in pixels, iteration moving every site less than it is the last one
+     * @return amount of done iterations
+     */
+    public int relax(int maxIterations, double threshold) {
+        for (int iteration = 0; iteration < maxIterations; iteration++)
+            if (iterate() < threshold)
+                return iteration + 1;
+        return maxIterations;
+    }
+
+    /**
+     * Assign every pixel to the closest site and move every site to the centroid of its pixels
+     * @return largest distance some site moved
+     */
+    public double iterate() {
+        long indexStartNanos = Metrics.startPhase();
+        SiteGrid siteGrid = new SiteGrid(this.sitesX, this.sitesY, this.sitesValue, this.imageSize, this.imageSize);
+        Metrics.endPhase(Phase.INDEX_BUILD, indexStartNanos);
+
+        long assignmentStartNanos = Metrics.startPhase();
+        if (this.executor == null)
+            assignRows(siteGrid, 0, this.imageSize);
+        else
+            ParallelTasks.runRowBands(this.executor, this.imageSize, ParallelTasks.defaultBands(),
+                    (fromRow, toRow) -> assignRows(siteGrid, fromRow, toRow));
+
+        //  sum coordinates of pixels, each set of accumulators takes its own group of rows
+        int sets = this.executor == null ? 1 : this.setCounts.length;
+        int groupHeight = (this.imageSize + sets - 1) / sets;
+        if (sets == 1)
+            accumulateRows(0, 0, this.imageSize);
+        else {
+            List<Callable<Void>> tasks = new ArrayList<>(sets);
+            for (int set = 0; set < sets; set++) {
+                final int setIndex = set;
+                final int fromRow = Math.min(set * groupHeight, this.imageSize);
+                final int toRow = Math.min(fromRow + groupHeight, this.imageSize);
+                tasks.add(() -> {
+                    accumulateRows(setIndex, fromRow, toRow);
+                    return null;
+                });
+            }
+            ParallelTasks.runAll(this.executor, tasks);
+        }
+
+        //  merge sets and move sites, ranges of sites are merged in parallel
+        DoubleAccumulator maxShift = new DoubleAccumulator(Math::max, 0);
+        if (this.executor == null)
+            moveSites(0, this.sitesValue, sets, maxShift);
+        else
+            ParallelTasks.runRowBands(this.executor, this.sitesValue, ParallelTasks.defaultBands(),
+                    (fromSite, toSite) -> moveSites(fromSite, toSite, sets, maxShift));
+        Metrics.endPhase(Phase.ASSIGNMENT, assignmentStartNanos);
+        Metrics.count(Counter.PIXELS_WRITTEN, (long) this.imageSize * this.imageSize);
+
+        this.iterationsValue++;
+        return maxShift.get();
+    }
+
+    /**
+     * assign pixels of rows to the closest sites
+     * @param siteGrid grid over current positions of sites
+     * @param fromRow first row (inclusive)
+     * @param toRow last row (exclusive)
+     */
+    private void assignRows(SiteGrid siteGrid, int fromRow, int toRow) {
+        SiteGrid.ClosestSiteSearch search = new SiteGrid.ClosestSiteSearch(siteGrid);
+        for (int y = fromRow; y < toRow; y++) {
+            int rowOffset = y * this.imageSize;
+            for (int x = 0; x < this.imageSize; x++) {
+                //  warm start: owner on previous iteration, or left neighbour on the first one
+                int hint = this.labels[rowOffset + x];
+                if (hint < 0 && x > 0)
+                    hint = this.labels[rowOffset + x - 1];
+                this.labels[rowOffset + x] = search.findClosest(x, y, hint);
+            }
+        }
+    }
+
+    /**
+     * sum coordinates of pixels of rows into accumulators of the set
+     * @param set index of accumulator set
+     * @param fromRow first row (inclusive)
+     * @param toRow last row (exclusive)
+     */
+    private void accumulateRows(int set, int fromRow, int toRow) {
+        long[] sumsX = this.setSumsX[set];
+        long[] sumsY = this.setSumsY[set];
+        int[] counts = this.setCounts[set];
+        Arrays.fill(sumsX, 0);
+        Arrays.fill(sumsY, 0);
+        Arrays.fill(counts, 0);
+
+        for (int y = fromRow; y < toRow; y++) {
+            int rowOffset = y * this.imageSize;
+            for (int x = 0; x < this.imageSize; x++) {
+                int owner = this.labels[rowOffset + x];
+                sumsX[owner] += x;
+                sumsY[owner] += y;
+                counts[owner]++;
+            }
+        }
+    }
+
+    /**
+     * move sites of the range to centroids of their pixels summed over all accumulator sets
+     * @param fromSite first site (inclusive)
+     * @param toSite last site (exclusive)
+     * @param sets amount of filled accumulator sets
+     * @param maxShift receiver of the largest distance some site moved
+     */
+    private void moveSites(int fromSite, int toSite, int sets, DoubleAccumulator maxShift) {
+        double rangeShift = 0;
+        for (int site = fromSite; site < toSite; site++) {
+            long sumX = 0;
+            long sumY = 0;
+            long count = 0;
+            for (int set = 0; set < sets; set++) {
+                sumX += this.setSumsX[set][site];
+                sumY += this.setSumsY[set][site];
+                count += this.setCounts[set][site];
+            }
+            if (count == 0)
+                continue;
+
+            double centroidX = (double) sumX / count;
+            double centroidY = (double) sumY / count;
+            rangeShift = Math.max(rangeShift, Math.hypot(centroidX - this.sitesX[site], centroidY - this.sitesY[site]));
+            this.sitesX[site] = centroidX;
+            this.sitesY[site] = centroidY;
+        }
+        maxShift.accumulate(rangeShift);
+    }
+
+    /**
+     * Write current positions of sites into the store
+     * @param siteStore store holding the same sites, IDs match site indexes
+     */
+    public void copyPositionsTo(SiteStore siteStore) {
+        for (int i = 0; i < this.sitesValue; i++)
+            siteStore.setPosition(i, this.sitesX[i], this.sitesY[i]);
+    }
+
+    /**
+     * set executor computing bands of rows and ranges of sites
+     * @param executor executor, null to compute in the calling thread
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    //  getters
+
+    public int getSitesValue() {
+        return sitesValue;
+    }
+
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    public double getX(int site) {
+        return sitesX[site];
+    }
+
+    public double getY(int site) {
+        return sitesY[site];
+    }
+
+    public int getIterationsValue() {
+        return iterationsValue;
+    }
+
+    /**
+     * @return owner of each pixel found on the last iteration, pixel (x, y) is at y * imageSize + x, -1 before the
+     * first iteration; the array is overwritten by the next iteration
+     */
+    public int[] getLabels() {
+        return labels;
+    }
+}
@@ -0,0 +1,194 @@
+package PixelByPixelMethod;
+
+/**
+ *  Uniform grid spatial index over interest points used for nearest-site lookup. Square area is split into equal cells
+ * holding about {@link #SITES_PER_CELL} sites each, query visits cells in rings of growing radius around the queried
+ * point and stops as soon as no site outside of visited rings can be closer than the best one found. Works for both
+ * Euclidean and Manhattan distances, on equal distance the site with lower index wins (same as linear scan), so
+ * results are identical to brute force.
+ */
+public class NearestSiteGrid {
+    //  average amount of sites that grid tries to put into one cell
+    public static final int SITES_PER_CELL = 2;
+
+    //  amount of cells on each side of the grid and size of one cell in pixels
+    private final int cellsPerSide;
+    private final int cellSize;
+
+    //  cell of each site is range [cellStart[cell], cellStart[cell + 1]) in arrays below
+    private final int[] cellStart;
+
+    //  coordinates and original indexes of sites ordered by cell, inside of cell ordered by index
+    private final int[] sortedX;
+    private final int[] sortedY;
+    private final int[] sortedIndex;
+
+    //  position of each site in arrays above by its original index
+    private final int[] positionOf;
+
+    /**
+     * Constructor, builds grid over sites in O(n) via counting sort, all sites must lie inside of [0, areaSize)
+     * @param interestPointsX X coordinates of interest points
+     * @param interestPointsY Y coordinates of interest points
+     * @param interestPointsValue how many interest points there are
+     * @param areaSize side of the square area containing all interest points
+     */
+    public NearestSiteGrid(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int areaSize) {
+        if (interestPointsValue <= 0)
+            throw new IllegalArgumentException("Grid requires at least one interest point");
+
+        //  choose grid resolution so that each cell has around SITES_PER_CELL sites
+        this.cellsPerSide = Math.max(1, (int) Math.ceil(Math.sqrt((double) interestPointsValue / SITES_PER_CELL)));
+        this.cellSize = Math.max(1, (areaSize + this.cellsPerSide - 1) / this.cellsPerSide);
+
+        //  count sites in each cell
+        int[] siteCells = new int[interestPointsValue];
+        this.cellStart = new int[this.cellsPerSide * this.cellsPerSide + 1];
+        for (int i = 0; i < interestPointsValue; i++) {
+            siteCells[i] = cellOf(interestPointsX[i], interestPointsY[i]);
+            this.cellStart[siteCells[i] + 1]++;
+        }
+
+        //  turn counts into starting positions
+        for (int cell = 0; cell < this.cellsPerSide * this.cellsPerSide; cell++)
+            this.cellStart[cell + 1] += this.cellStart[cell];
+
+        //  place sites into cells, going by index keeps sites of each cell ordered by index
+        this.sortedX = new int[interestPointsValue];
+        this.sortedY = new int[interestPointsValue];
+        this.sortedIndex = new int[interestPointsValue];
+        this.positionOf = new int[interestPointsValue];
+        int[] cellFill = new int[this.cellsPerSide * this.cellsPerSide];
+        for (int i = 0; i < interestPointsValue; i++) {
+            int position = this.cellStart[siteCells[i]] + cellFill[siteCells[i]]++;
+            this.sortedX[position] = interestPointsX[i];
+            this.sortedY[position] = interestPointsY[i];
+            this.sortedIndex[position] = i;
+            this.positionOf[i] = position;
+        }
+    }
+
+    /**
+     * find interest point closest to the point, on equal distance the one with lower index wins
+     * @param x position of the point on X-axis
+     * @param y position of the point on Y-axis
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     * @return index of the closest interest point
+     */
+    public int findClosest(int x, int y, boolean isManhattanRequired) {
+        return findClosest(x, y, DistanceMetric.of(isManhattanRequired));
+    }
+
+    /**
+     * find interest point closest to the point, on equal distance the one with lower index wins
+     * @param x position of the point on X-axis
+     * @param y position of the point on Y-axis
+     * @param metric distance used for finding the closest interest point
+     * @return index of the closest interest point
+     */
+    public int findClosest(int x, int y, DistanceMetric metric) {
+        return (int) findClosestCounted(x, y, metric);
+    }
+
+    /**
+     * find interest point closest to the point and count checked interest points
+     * @param x position of the point on X-axis
+     * @param y position of the point on Y-axis
+     * @param metric distance used for finding the closest interest point
+     * @return index of the closest interest point in the lower 32 bits, amount of computed distances in the upper ones
+     */
+    long findClosestCounted(int x, int y, DistanceMetric metric) {
+        return findClosestCounted(x, y, metric, -1);
+    }
+
+    /**
+     *  find interest point closest to the point starting from the hinted one, search is bounded from the start by
+     * distance to it. Result does not depend on the hint.
+     * @param x position of the point on X-axis
+     * @param y position of the point on Y-axis
+     * @param metric distance used for finding the closest interest point
+     * @param hint index of interest point likely to be the closest one, -1 if there is none
+     * @return index of the closest interest point in the lower 32 bits, amount of computed distances in the upper ones
+     */
+    long findClosestCounted(int x, int y, DistanceMetric metric, int hint) {
+        int evaluations = 0;
+        int cellX = clampCell(x / this.cellSize);
+        int cellY = clampCell(y / this.cellSize);
+
+        int closestIndex = Integer.MAX_VALUE;
+        //  distance in comparable form of the metric
+        double closestDistance = Double.MAX_VALUE;
+        if (hint >= 0) {
+            int position = this.positionOf[hint];
+            closestIndex = hint;
+            closestDistance = metric.comparableDistance((long) this.sortedX[position] - x, (long) this.sortedY[position] - y);
+            evaluations++;
+        }
+
+        for (int ring = 0; ; ring++) {
+            int fromCellX = cellX - ring;
+            int toCellX = cellX + ring;
+            int fromCellY = cellY - ring;
+            int toCellY = cellY + ring;
+
+            //  visit cells lying exactly on the ring border
+            for (int currentCellY = Math.max(fromCellY, 0); currentCellY <= Math.min(toCellY, this.cellsPerSide - 1); currentCellY++) {
+                boolean isBorderRow = currentCellY == fromCellY || currentCellY == toCellY;
+                int step = isBorderRow ? 1 : toCellX - fromCellX;
+                for (int currentCellX = fromCellX; currentCellX <= toCellX; currentCellX += step) {
+                    if (currentCellX < 0 || currentCellX >= this.cellsPerSide)
+                        continue;
+
+                    int cell = currentCellY * this.cellsPerSide + currentCellX;
+                    evaluations += this.cellStart[cell + 1] - this.cellStart[cell];
+                    for (int position = this.cellStart[cell]; position < this.cellStart[cell + 1]; position++) {
+                        double distance = metric.comparableDistance((long) this.sortedX[position] - x, (long) this.sortedY[position] - y);
+                        if (distance < closestDistance || (distance == closestDistance && this.sortedIndex[position] < closestIndex)) {
+                            closestDistance = distance;
+                            closestIndex = this.sortedIndex[position];
+                        }
+                    }
+                }
+            }
+
+            //  all cells were visited
+            if (fromCellX <= 0 && fromCellY <= 0 && toCellX >= this.cellsPerSide - 1 && toCellY >= this.cellsPerSide - 1)
+                return ((long) evaluations << 32) | closestIndex;
+
+            //  any site outside of visited square is at least this far on one of the axes, so in any Minkowski metric it
+            // is at least this far at all (points outside of the area may have negative gap, such ones never stop the
+            // search early)
+            long gap = Math.max(0, Math.min(
+                    Math.min(x - (long) fromCellX * this.cellSize, (long) (toCellX + 1) * this.cellSize - x),
+                    Math.min(y - (long) fromCellY * this.cellSize, (long) (toCellY + 1) * this.cellSize - y)
+            ));
+            double boundary = metric.comparableDistance(gap, 0);
+            if (closestIndex != Integer.MAX_VALUE && boundary > closestDistance)
+                return ((long) evaluations << 32) | closestIndex;
+        }
+    }
+
+    /**
+     * find cell containing the point, points outside of the area are put into the nearest border cell
+     * @param x position of the point on X-axis
+     * @param y position of the point on Y-axis
+     * @return index of the cell
+     */
+    private int cellOf(int x, int y) {
+        return clampCell(y / this.cellSize) * this.cellsPerSide + clampCell(x / this.cellSize);
+    }
+
+    private int clampCell(int cell) {
+        return Math.max(0, Math.min(cell, this.cellsPerSide - 1));
+    }
+
+    //  getters
+
+    public int getCellsPerSide() {
+        return cellsPerSide;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+}
@@ -0,0 +1,51 @@
+package PixelByPixelMethod;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ *  Loop finding the closest interest point by checking all of them. Scalar loop of every metric is the metric itself,
+ * vectorized loop exists only when the classes of "vector" build profile are present and the JVM runs with
+ * jdk.incubator.vector module, otherwise the scalar one is used. Both give the same index, lower one on equal distance.
+ */
+public interface NearestSiteKernel {
+    /**
+     * Find interest point closest to the point by checking all of them, on equal distance the one with lower index wins
+     * @param interestPointsX X coordinates of interest points
+     * @param interestPointsY Y coordinates of interest points
+     * @param interestPointsValue how many interest points there are
+     * @param x position of the point on X-axis
+     * @param y position of the point on Y-axis
+     * @return index of the closest interest point
+     */
+    int findClosest(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y);
+
+    /**
+     * Fastest available loop for the metric
+     * @param metric distance used for finding the closest interest point
+     * @param imageSize side of the image, all interest points and points must be inside of it
+     * @return vectorized loop if it is available and supports the metric for this image size, the metric otherwise
+     */
+    static NearestSiteKernel forMetric(DistanceMetric metric, int imageSize) {
+        Constructor<?> vectorKernelConstructor = VectorKernelLoader.constructor();
+        if (vectorKernelConstructor == null)
+            return metric;
+        try {
+            return (NearestSiteKernel) vectorKernelConstructor.newInstance(metric, imageSize);
+        } catch (InvocationTargetException e) {
+            //  metric or image size is not supported by vector lanes
+            if (e.getCause() instanceof IllegalArgumentException)
+                return metric;
+            throw new IllegalStateException("Vector kernel creation failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Vector kernel creation failed", e);
+        }
+    }
+
+    /**
+     * @return true if vectorized loop can be used in this JVM
+     */
+    static boolean isVectorKernelAvailable() {
+        return VectorKernelLoader.constructor() != null;
+    }
+}
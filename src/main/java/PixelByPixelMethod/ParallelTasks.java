@@ -0,0 +1,99 @@
+package PixelByPixelMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Helper for running independent parts of the image or of the site list on an executor and waiting for all of them
+ */
+public final class ParallelTasks {
+    private ParallelTasks() {
+    }
+
+    /**
+     * Runs all tasks on the executor and waits for them, first failure is rethrown
+     * @param executor executor that will run the tasks
+     * @param tasks independent tasks
+     * @param <T> result of each task
+     * @return results of tasks in their order
+     */
+    public static <T> List<T> runAll(ExecutorService executor, List<? extends Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> task : executor.invokeAll(tasks))
+                results.add(task.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel computation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel computation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Splits rows [0, rows) into bands and runs action on each band in parallel, waiting for all of them
+     * @param executor executor that will run the bands
+     * @param rows amount of rows
+     * @param bands how many bands rows must be split into
+     * @param action action receiving first (inclusive) and last (exclusive) row of its band
+     */
+    public static void runRowBands(ExecutorService executor, int rows, int bands, RowBandAction action) {
+        sumRanges(executor, rows, bands, (fromRow, toRow) -> {
+            action.run(fromRow, toRow);
+            return 0;
+        });
+    }
+
+    /**
+     * Splits range [0, size) into parts and runs action on each part in parallel, waiting for all of them
+     * @param executor executor that will run the parts, null to run the whole range in the calling thread
+     * @param size length of the range, for example amount of rows or sites
+     * @param parts how many parts range must be split into
+     * @param action action receiving first (inclusive) and last (exclusive) element of its part
+     * @return sum of values returned by all parts, for example of counted operations
+     */
+    public static long sumRanges(ExecutorService executor, int size, int parts, RangeAction action) {
+        if (executor == null || size <= 1)
+            return action.run(0, size);
+
+        int partSize = Math.max(1, (size + parts - 1) / parts);
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (int from = 0; from < size; from += partSize) {
+            final int fromElement = from;
+            final int toElement = Math.min(from + partSize, size);
+            tasks.add(() -> action.run(fromElement, toElement));
+        }
+
+        long sum = 0;
+        for (long partValue : runAll(executor, tasks))
+            sum += partValue;
+        return sum;
+    }
+
+    /**
+     * Work done on band of rows
+     */
+    public interface RowBandAction {
+        void run(int fromRow, int toRow);
+    }
+
+    /**
+     * Work done on part of a range, returning value summed over all parts
+     */
+    public interface RangeAction {
+        long run(int from, int to);
+    }
+
+    /**
+     * Amount of bands giving every worker of the common pool several bands to balance the load
+     * @return default amount of bands
+     */
+    public static int defaultBands() {
+        return Runtime.getRuntime().availableProcessors() * 4;
+    }
+}
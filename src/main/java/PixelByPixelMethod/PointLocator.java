@@ -0,0 +1,116 @@
+package PixelByPixelMethod;
+
+import Metrics.Counter;
+import Metrics.Metrics;
+import Metrics.Phase;
+import Sites.SiteStore;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  Answers "which interest point owns this coordinate" without rendering any image. Spatial index over interest points
+ * is built once, then batches of query coordinates are split into chunks answered in parallel, each query is a grid
+ * lookup that allocates nothing. Answers are the same a rendered label image has at the same pixel, also for
+ * coordinates outside of the area.
+ */
+public class PointLocator {
+    //  amount of queries answered by one parallel task
+    public static final int CHUNK_SIZE = 1 << 14;
+
+    private final NearestSiteGrid siteGrid;
+    private final DistanceMetric metric;
+    private final int interestPointsValue;
+
+    /**
+     * Constructor, builds spatial index, arrays are not kept
+     * @param interestPointsX X coordinates of interest points, each must be inside of [0, areaSize)
+     * @param interestPointsY Y coordinates of interest points, each must be inside of [0, areaSize)
+     * @param interestPointsValue how many interest points there are
+     * @param areaSize side of the square area containing all interest points
+     * @param metric distance used for finding the closest interest point
+     */
+    public PointLocator(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int areaSize, DistanceMetric metric) {
+        for (int i = 0; i < interestPointsValue; i++)
+            if (interestPointsX[i] < 0 || interestPointsX[i] >= areaSize || interestPointsY[i] < 0 || interestPointsY[i] >= areaSize)
+                throw new IllegalArgumentException("Interest point " + i + " is outside of the area");
+        long startNanos = Metrics.startPhase();
+        this.siteGrid = new NearestSiteGrid(interestPointsX, interestPointsY, interestPointsValue, areaSize);
+        Metrics.endPhase(Phase.INDEX_BUILD, startNanos);
+        this.metric = metric;
+        this.interestPointsValue = interestPointsValue;
+    }
+
+    /**
+     * Create locator over sites of the store, coordinates are rounded to the closest pixel
+     * @param siteStore sites, each must be inside of the area after rounding
+     * @param areaSize side of the square area containing all sites
+     * @param metric distance used for finding the closest interest point
+     * @return locator, answers are site IDs
+     */
+    public static PointLocator fromStore(SiteStore siteStore, int areaSize, DistanceMetric metric) {
+        return new PointLocator(siteStore.roundSitesX(), siteStore.roundSitesY(), siteStore.getSitesValue(), areaSize, metric);
+    }
+
+    /**
+     * Find owner of one coordinate
+     * @param x position on X-axis
+     * @param y position on Y-axis
+     * @return index of the closest interest point, the lower one on equal distance
+     */
+    public int locate(int x, int y) {
+        return this.siteGrid.findClosest(x, y, this.metric);
+    }
+
+    /**
+     * Find owners of a batch of coordinates in parallel on the common fork-join pool
+     * @param queriesX X coordinates of queries
+     * @param queriesY Y coordinates of queries
+     * @param owners storage for index of the closest interest point of each query
+     * @param queriesValue how many queries there are
+     */
+    public void locateAll(int[] queriesX, int[] queriesY, int[] owners, int queriesValue) {
+        locateAll(queriesX, queriesY, owners, queriesValue, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Find owners of a batch of coordinates, owner of query i is stored at owners[i]
+     * @param queriesX X coordinates of queries
+     * @param queriesY Y coordinates of queries
+     * @param owners storage for index of the closest interest point of each query
+     * @param queriesValue how many queries there are
+     * @param executor executor that will run chunks of queries, null to answer them in the calling thread
+     */
+    public void locateAll(int[] queriesX, int[] queriesY, int[] owners, int queriesValue, ExecutorService executor) {
+        if (queriesValue < 0 || queriesX.length < queriesValue || queriesY.length < queriesValue || owners.length < queriesValue)
+            throw new IllegalArgumentException("Arrays of " + queriesValue + " queries are required");
+
+        long startNanos = Metrics.startPhase();
+        if (executor == null || queriesValue <= CHUNK_SIZE)
+            locateRange(queriesX, queriesY, owners, 0, queriesValue);
+        else
+            ParallelTasks.runRowBands(executor, queriesValue, (queriesValue + CHUNK_SIZE - 1) / CHUNK_SIZE,
+                    (fromQuery, toQuery) -> locateRange(queriesX, queriesY, owners, fromQuery, toQuery));
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+    }
+
+    private void locateRange(int[] queriesX, int[] queriesY, int[] owners, int fromQuery, int toQuery) {
+        long evaluations = 0;
+        for (int query = fromQuery; query < toQuery; query++) {
+            long counted = this.siteGrid.findClosestCounted(queriesX[query], queriesY[query], this.metric);
+            owners[query] = (int) counted;
+            evaluations += counted >>> 32;
+        }
+        Metrics.count(Counter.DISTANCE_EVALUATIONS, evaluations);
+    }
+
+    //  getters
+
+    public DistanceMetric getMetric() {
+        return metric;
+    }
+
+    public int getInterestPointsValue() {
+        return interestPointsValue;
+    }
+}
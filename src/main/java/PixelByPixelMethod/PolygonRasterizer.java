@@ -0,0 +1,159 @@
+package PixelByPixelMethod;
+
+import Metrics.Counter;
+import Metrics.Metrics;
+import Metrics.Phase;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ *  Scanline filling of convex cell polygons, for example loci found by HalfPlaneIntersectionOld.LocusMethod, into
+ * label or color buffer without any distance evaluation. Pixel (x, y) stands for point (x, y) as in the pixel by pixel
+ * engines. For each row of the polygon its edges give the span of covered pixels, the span is written as one run, so
+ * the work is O(pixels + edges). Rows are split into bands computed in parallel, each band visits only polygons
+ * crossing its rows. Polygons are painted from the last one to the first one and spans are widened by EPSILON, so a
+ * pixel lying on the border of two cells gets the lower index, the same as the closest interest point search gives.
+ */
+public class PolygonRasterizer {
+    //  tolerance of comparison of pixel and polygon coordinates, covers rounding of vertices of neighbour cells
+    public static final double EPSILON = 1e-7;
+
+    //  image size in pixels
+    private final int width;
+    private final int height;
+
+    /**
+     * Constructor
+     * @param width width of the image, pixel (x, y) is at y * width + x
+     * @param height height of the image
+     */
+    public PolygonRasterizer(int width, int height) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Image of " + width + "x" + height + " is empty");
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Write index of the covering polygon into every pixel, pixels outside of all polygons get -1
+     * @param polygons interleaved X and Y coordinates of vertices of each convex polygon, null or degenerate are skipped
+     * @param labels storage for width * height labels
+     * @param executor executor that will run bands of rows, null to fill all rows in the calling thread
+     */
+    public void fillLabels(double[][] polygons, int[] labels, ExecutorService executor) {
+        fill(polygons, null, labels, executor);
+    }
+
+    /**
+     * Write color of the covering polygon into every pixel, pixels outside of all polygons get black color
+     * @param polygons interleaved X and Y coordinates of vertices of each convex polygon, null or degenerate are skipped
+     * @param colors RGB color of each polygon
+     * @param pixels storage for width * height colors
+     * @param executor executor that will run bands of rows, null to fill all rows in the calling thread
+     */
+    public void fillPixels(double[][] polygons, int[] colors, int[] pixels, ExecutorService executor) {
+        if (colors.length < polygons.length)
+            throw new IllegalArgumentException("Color is required for each of " + polygons.length + " polygons, got " + colors.length);
+        fill(polygons, colors, pixels, executor);
+    }
+
+    private void fill(double[][] polygons, int[] colors, int[] output, ExecutorService executor) {
+        if ((long) this.width * this.height > output.length)
+            throw new IllegalArgumentException("Storage for " + (long) this.width * this.height + " values is required, got " + output.length);
+
+        long startNanos = Metrics.startPhase();
+        //  vertical extent of each polygon, so that bands skip polygons outside of their rows
+        double[] minY = new double[polygons.length];
+        double[] maxY = new double[polygons.length];
+        for (int i = 0; i < polygons.length; i++) {
+            minY[i] = Double.POSITIVE_INFINITY;
+            maxY[i] = Double.NEGATIVE_INFINITY;
+            if (polygons[i] == null || polygons[i].length < 6)
+                continue;
+            for (int vertex = 1; vertex < polygons[i].length; vertex += 2) {
+                minY[i] = Math.min(minY[i], polygons[i][vertex]);
+                maxY[i] = Math.max(maxY[i], polygons[i][vertex]);
+            }
+        }
+
+        if (executor == null)
+            fillRows(polygons, colors, minY, maxY, output, 0, this.height);
+        else
+            ParallelTasks.runRowBands(executor, this.height, ParallelTasks.defaultBands(),
+                    (fromRow, toRow) -> fillRows(polygons, colors, minY, maxY, output, fromRow, toRow));
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+        Metrics.count(Counter.PIXELS_WRITTEN, (long) this.width * this.height);
+    }
+
+    /**
+     * fill band of rows by spans of all polygons crossing it
+     * @param polygons interleaved X and Y coordinates of vertices of each polygon
+     * @param colors RGB color of each polygon, null if labels are written
+     * @param minY lowest Y coordinate of each polygon
+     * @param maxY highest Y coordinate of each polygon
+     * @param output storage for labels or colors
+     * @param fromRow first row of the band (inclusive)
+     * @param toRow last row of the band (exclusive)
+     */
+    private void fillRows(double[][] polygons, int[] colors, double[] minY, double[] maxY, int[] output, int fromRow, int toRow) {
+        Arrays.fill(output, fromRow * this.width, toRow * this.width, colors == null ? -1 : 0);
+
+        //  leftmost and rightmost X of the current polygon on each row of the band
+        double[] spanLeft = new double[toRow - fromRow];
+        double[] spanRight = new double[toRow - fromRow];
+
+        for (int i = polygons.length - 1; i >= 0; i--) {
+            int firstRow = (int) Math.max(fromRow, Math.ceil(minY[i] - EPSILON));
+            int lastRow = (int) Math.min(toRow - 1, Math.floor(maxY[i] + EPSILON));
+            if (firstRow > lastRow)
+                continue;
+            Arrays.fill(spanLeft, firstRow - fromRow, lastRow - fromRow + 1, Double.POSITIVE_INFINITY);
+            Arrays.fill(spanRight, firstRow - fromRow, lastRow - fromRow + 1, Double.NEGATIVE_INFINITY);
+
+            //  every edge widens spans of rows it crosses
+            double[] polygon = polygons[i];
+            for (int vertex = 0; vertex < polygon.length; vertex += 2) {
+                double x1 = polygon[vertex];
+                double y1 = polygon[vertex + 1];
+                double x2 = polygon[(vertex + 2) % polygon.length];
+                double y2 = polygon[(vertex + 3) % polygon.length];
+                int edgeFirstRow = (int) Math.max(firstRow, Math.ceil(Math.min(y1, y2) - EPSILON));
+                int edgeLastRow = (int) Math.min(lastRow, Math.floor(Math.max(y1, y2) + EPSILON));
+                boolean isHorizontal = Math.abs(y2 - y1) < EPSILON;
+                for (int y = edgeFirstRow; y <= edgeLastRow; y++) {
+                    double left;
+                    double right;
+                    if (isHorizontal) {
+                        left = Math.min(x1, x2);
+                        right = Math.max(x1, x2);
+                    } else {
+                        //  rows touched only within tolerance take the closest end of the edge
+                        double t = Math.max(0, Math.min(1, (y - y1) / (y2 - y1)));
+                        left = right = x1 + t * (x2 - x1);
+                    }
+                    spanLeft[y - fromRow] = Math.min(spanLeft[y - fromRow], left);
+                    spanRight[y - fromRow] = Math.max(spanRight[y - fromRow], right);
+                }
+            }
+
+            int value = colors == null ? i : colors[i] & 0xFFFFFF;
+            for (int y = firstRow; y <= lastRow; y++) {
+                int fromX = (int) Math.max(0, Math.ceil(spanLeft[y - fromRow] - EPSILON));
+                int toX = (int) Math.min(this.width - 1, Math.floor(spanRight[y - fromRow] + EPSILON));
+                if (fromX <= toX)
+                    Arrays.fill(output, y * this.width + fromX, y * this.width + toX + 1, value);
+            }
+        }
+    }
+
+    //  getters
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
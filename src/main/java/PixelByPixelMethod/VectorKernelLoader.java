@@ -0,0 +1,33 @@
+package PixelByPixelMethod;
+
+import java.lang.reflect.Constructor;
+
+/**
+ *  Lookup of vectorized nearest interest point loop, done once on first use
+ */
+final class VectorKernelLoader {
+    //  class compiled by "vector" build profile, missing in the usual build
+    private static final String VECTOR_KERNEL_CLASS = "PixelByPixelMethod.VectorNearestSiteKernel";
+
+    private static final Constructor<?> CONSTRUCTOR = findConstructor();
+
+    private VectorKernelLoader() {
+    }
+
+    /**
+     * @return constructor (DistanceMetric metric, int imageSize) of vectorized loop, null if it can not be used
+     */
+    static Constructor<?> constructor() {
+        return CONSTRUCTOR;
+    }
+
+    private static Constructor<?> findConstructor() {
+        try {
+            //  initialization fails on old JVMs and without incubator module, both mean scalar loop
+            Class<?> vectorKernelClass = Class.forName(VECTOR_KERNEL_CLASS, true, VectorKernelLoader.class.getClassLoader());
+            return vectorKernelClass.getConstructor(DistanceMetric.class, int.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package PixelByPixelMethod;
 
+import Metrics.Metrics;
+import Metrics.SummingMetricsSink;
+
 import javax.swing.JFrame;
 
 public class Voronoi extends JFrame {
@@ -10,8 +13,13 @@ public class Voronoi extends JFrame {
         //  randomize interest points colors and coordinates
         voronoiBrute.interestPointsRandomize();
 
+        //  collect timings of the run
+        SummingMetricsSink metricsSink = new SummingMetricsSink();
+        Metrics.setSink(metricsSink);
+
         //  find and calculate locusts for interest points pixel-by-pixel
         voronoiBrute.voronoiLocustsIdentification(true);
+        System.out.print(metricsSink);
 
         //  make displayable image
         voronoiBrute.setVisible(true);
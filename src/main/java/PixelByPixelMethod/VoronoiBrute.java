@@ -1,15 +1,27 @@
 package PixelByPixelMethod;
 
-import javax.imageio.ImageIO;
+import Metrics.Metrics;
+import Metrics.Phase;
+import Pipeline.PngImageEncoder;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 public class VoronoiBrute extends JFrame {
+    //  side of the square tile processed by one task in parallel mode
+    public static final int DEFAULT_TILE_SIZE = VoronoiRaster.DEFAULT_TILE_SIZE;
+
     //  constants showing how many points of interest there are and size of segment for analysis
     private final int interestPointsValue;
     private final int imageSize;
@@ -24,6 +36,9 @@ public class VoronoiBrute extends JFrame {
     //  interest points colors
     private final int[] interestPointsColors;
 
+    //  headless engine colorizing pixels of the image, works over the same interest point arrays
+    private final VoronoiRaster raster;
+
     /**
      * constructor
      * @param name name of the figure
@@ -53,6 +68,8 @@ public class VoronoiBrute extends JFrame {
         this.interestPointsY = new int[interestPointsValue];
         //  set array of colors for interest points
         this.interestPointsColors = new int[interestPointsValue];
+
+        this.raster = new VoronoiRaster(this.interestPointsX, this.interestPointsY, this.interestPointsColors, interestPointsValue, imageSize);
     }
 
     /**
@@ -80,49 +97,106 @@ public class VoronoiBrute extends JFrame {
      * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
      */
     public void voronoiLocustsIdentification(boolean isManhattanRequired) {
-        long startTime = System.currentTimeMillis();
-
-        //  iterate through all "pixels" of the image
-        for (int currentPointX = 0; currentPointX < this.imageSize; currentPointX++)
-            for (int currentPointY = 0; currentPointY < this.imageSize; currentPointY++) {
-                int closestInterestPointIndex = 0;
-
-                //  iterate through all cells of the image
-                for (byte currentInteresPoint = 0; currentInteresPoint < this.interestPointsValue; currentInteresPoint++)
-                    //  choose distance calculation method between Manhattan algorithm and Euclidean
-                    if(isManhattanRequired) {
-                        if (
-                                manhattanDistance2D(
-                                        this.interestPointsX[currentInteresPoint], currentPointX,
-                                        this.interestPointsY[currentInteresPoint], currentPointY
-                                ) < manhattanDistance2D(
-                                        this.interestPointsX[closestInterestPointIndex], currentPointX,
-                                        this.interestPointsY[closestInterestPointIndex], currentPointY)
-                        ) {
-                            closestInterestPointIndex = currentInteresPoint;
-                        }
-                    } else if (
-                            euclideanDistance2D(
-                                    this.interestPointsX[currentInteresPoint], currentPointX,
-                                    this.interestPointsY[currentInteresPoint], currentPointY
-                            ) < euclideanDistance2D(
-                                    this.interestPointsX[closestInterestPointIndex], currentPointX,
-                                    this.interestPointsY[closestInterestPointIndex], currentPointY)
-                    ) {
-                        closestInterestPointIndex = currentInteresPoint;
-                    }
-                //  apply color of the cell to current "pixel"
-                this.image.setRGB(currentPointX, currentPointY, interestPointsColors[closestInterestPointIndex]);
-            }
-
-        long endTime = System.currentTimeMillis();
-        System.out.println("Execution time is " + (endTime - startTime) + " ms.");
-    }
-
-    /**
-     * Paint image on the screen using graphics by setting offset and observer that will handle displayable elements
+        voronoiLocustsIdentification(DistanceMetric.of(isManhattanRequired));
+    }
+
+    /**
+     *  generate locusts for all interest points using colorization via pixel-by-pixel calculation, metric is resolved
+     * once into its specialized nearest point loop
+     * @param metric distance used for finding the closest interest point
+     */
+    public void voronoiLocustsIdentification(DistanceMetric metric) {
+        this.raster.fillPixels(imagePixels(), metric);
+    }
+
+    /**
+     * generate locusts for all interest points in parallel on the common fork-join pool, tiles are of default size
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     */
+    public void voronoiLocustsIdentificationParallel(boolean isManhattanRequired) {
+        voronoiLocustsIdentificationParallel(isManhattanRequired, ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * generate locusts for all interest points in parallel
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     * @param executor executor that will run tiles, fork-join pool or any another one
+     * @param tileSize side of the square tile in pixels
+     */
+    public void voronoiLocustsIdentificationParallel(boolean isManhattanRequired, ExecutorService executor, int tileSize) {
+        voronoiLocustsIdentificationParallel(DistanceMetric.of(isManhattanRequired), executor, tileSize);
+    }
+
+    /**
+     *  generate locusts for all interest points in parallel: image is split into square tiles, each tile is computed
+     * by executor and written straight into the backing array of the image raster. Result is identical to the serial
+     * {@link #voronoiLocustsIdentification(DistanceMetric)}
+     * @param metric distance used for finding the closest interest point
+     * @param executor executor that will run tiles, fork-join pool or any another one
+     * @param tileSize side of the square tile in pixels
+     */
+    public void voronoiLocustsIdentificationParallel(DistanceMetric metric, ExecutorService executor, int tileSize) {
+        this.raster.fillPixelsParallel(imagePixels(), metric, executor, tileSize);
+    }
+
+    /**
+     *  generate locusts for all interest points using Jump Flooding Algorithm on the common fork-join pool: labels are
+     * propagated over the image in O(log N) passes instead of checking every interest point for every "pixel"
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     * @param isCorrectionRequired true if correction passes fixing rare wrong "pixels" must be run
+     */
+    public void voronoiLocustsIdentificationJumpFlooding(boolean isManhattanRequired, boolean isCorrectionRequired) {
+        this.raster.fillPixelsJumpFlooding(imagePixels(), isManhattanRequired, isCorrectionRequired);
+    }
+
+    /**
+     * backing array of the image, pixels are stored row by row, so pixel (x, y) is at y * imageSize + x
+     * @return colors of all pixels of the image
+     */
+    private int[] imagePixels() {
+        return ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Mark interest points on the image and save it as "voronoi.png" of the working directory
      */
     public void draw() {
+        //  try to create image
+        try (OutputStream output = Files.newOutputStream(Paths.get("voronoi.png"))) {
+            draw(output);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     *  Mark interest points on the image and write it as PNG into the channel. Image is encoded by blocks of rows in
+     * parallel on the common fork-join pool, as indexed image if it has not more than 256 colors
+     * @param channel destination of the image, blocking and not closed by this method
+     * @throws IOException error of writing
+     */
+    public void draw(WritableByteChannel channel) throws IOException {
+        PngImageEncoder encoder = new PngImageEncoder();
+        draw((pixels, width, height) -> encoder.write(pixels, width, height, channel));
+    }
+
+    /**
+     *  Mark interest points on the image and write it as PNG into the stream. Image is encoded by blocks of rows in
+     * parallel on the common fork-join pool, as indexed image if it has not more than 256 colors
+     * @param output destination of the image, not closed by this method
+     * @throws IOException error of writing
+     */
+    public void draw(OutputStream output) throws IOException {
+        PngImageEncoder encoder = new PngImageEncoder();
+        draw((pixels, width, height) -> encoder.write(pixels, width, height, output));
+    }
+
+    /**
+     * mark interest points on the image and pass its pixels to the writer, writing is timed as encoding phase
+     * @param writer receiver of pixels of the image
+     * @throws IOException error of writing
+     */
+    private void draw(ImageWriter writer) throws IOException {
         //  apply graphics of the image with all parameters
         Graphics2D graphics2D = image.createGraphics();
 
@@ -133,13 +207,26 @@ public class VoronoiBrute extends JFrame {
         for (int i = 0; i < this.interestPointsValue; i++) {
             graphics2D.fill(new Ellipse2D.Double(this.interestPointsX[i] - 2.5, this.interestPointsY[i] - 2.5, 5, 5));
         }
+        graphics2D.dispose();
 
-        //  try to create image
-        try {
-            ImageIO.write(image, "png", new File("voronoi.png"));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        long startNanos = Metrics.startPhase();
+        writer.write(imagePixels(), this.imageSize, this.imageSize);
+        Metrics.endPhase(Phase.ENCODING, startNanos);
+    }
+
+    /**
+     * Receiver of pixels of the image
+     */
+    private interface ImageWriter {
+        void write(int[] pixels, int width, int height) throws IOException;
+    }
+
+    /**
+     * set how nearest interest point is searched for each "pixel"
+     * @param isSpatialIndexRequired true if uniform grid over interest points must be used, false for linear scan
+     */
+    public void setSpatialIndexRequired(boolean isSpatialIndexRequired) {
+        this.raster.setSpatialIndexRequired(isSpatialIndexRequired);
     }
 
     /**
@@ -151,8 +238,7 @@ public class VoronoiBrute extends JFrame {
      * @return distance between two points on the two-dimensional array using Euclidian algorithm
      */
     public static double euclideanDistance2D(int x1, int x2, int y1, int y2) {
-        //  euclidean distance calculation between two points in two-dimensional space
-        return Math.sqrt((x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2));
+        return VoronoiRaster.euclideanDistance2D(x1, x2, y1, y2);
     }
 
     /**
@@ -164,8 +250,7 @@ public class VoronoiBrute extends JFrame {
      * @return distance between two points on two-dimensional space
      */
     public static double manhattanDistance2D(int x1, int x2, int y1, int y2) {
-        //  manhattan algorithm for estimating two-points distance in two-dimensional space
-        return Math.abs(x1 - x2) + Math.abs(y1 - y2);
+        return VoronoiRaster.manhattanDistance2D(x1, x2, y1, y2);
     }
 
     /**
@@ -0,0 +1,396 @@
+package PixelByPixelMethod;
+
+import Metrics.Counter;
+import Metrics.Metrics;
+import Metrics.Phase;
+import Sites.SiteStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  Headless pixel-by-pixel engine: colors every pixel of the square image with the color of the closest interest point.
+ * Works only on primitive arrays, no window or image class is touched, so it can run on servers without display.
+ * Pixels are stored row by row, pixel (x, y) is at y * imageSize + x, colors are kept without alpha channel in the
+ * same way as TYPE_INT_RGB image stores them. Arrays of interest points are not copied, changes made in them are seen
+ * by the next computation.
+ */
+public class VoronoiRaster {
+    //  side of the square tile processed by one task in parallel mode
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    //  amount of int labels computed at once before they are packed into label raster
+    private static final int LABEL_STRIP_PIXELS = 1 << 18;
+
+    //  constants showing how many points of interest there are and size of segment for analysis
+    private final int interestPointsValue;
+    private final int imageSize;
+
+    //  interest points X and Y coordinates
+    private final int[] interestPointsX;
+    private final int[] interestPointsY;
+
+    //  interest points colors
+    private final int[] interestPointsColors;
+
+    //  true if nearest interest point must be found via spatial grid instead of linear scan over all points
+    private boolean isSpatialIndexRequired;
+
+    /**
+     * Constructor
+     * @param interestPointsX X coordinates of interest points, each must be inside of the image
+     * @param interestPointsY Y coordinates of interest points, each must be inside of the image
+     * @param interestPointsColors colors of interest points
+     * @param interestPointsValue how many interest points there are
+     * @param imageSize side of the square image
+     */
+    public VoronoiRaster(int[] interestPointsX, int[] interestPointsY, int[] interestPointsColors, int interestPointsValue, int imageSize) {
+        if (interestPointsValue <= 0)
+            throw new IllegalArgumentException("At least one interest point is required");
+        this.interestPointsX = interestPointsX;
+        this.interestPointsY = interestPointsY;
+        this.interestPointsColors = interestPointsColors;
+        this.interestPointsValue = interestPointsValue;
+        this.imageSize = imageSize;
+    }
+
+    /**
+     * Create engine over sites of the store, coordinates are rounded to the closest pixel
+     * @param siteStore sites of the diagram, each must be inside of the image after rounding
+     * @param imageSize side of the square image
+     * @return engine, interest point indexes match site IDs
+     */
+    public static VoronoiRaster fromStore(SiteStore siteStore, int imageSize) {
+        int sitesValue = siteStore.getSitesValue();
+        return new VoronoiRaster(siteStore.roundSitesX(), siteStore.roundSitesY(),
+                Arrays.copyOf(siteStore.getSitesColors(), sitesValue), sitesValue, imageSize);
+    }
+
+    /**
+     * colorize all pixels in the calling thread
+     * @param pixels storage for colors of imageSize * imageSize pixels
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     */
+    public void fillPixels(int[] pixels, boolean isManhattanRequired) {
+        fillPixels(pixels, DistanceMetric.of(isManhattanRequired));
+    }
+
+    /**
+     * colorize all pixels in the calling thread
+     * @param pixels storage for colors of imageSize * imageSize pixels
+     * @param metric distance used for finding the closest interest point
+     */
+    public void fillPixels(int[] pixels, DistanceMetric metric) {
+        checkPixels(pixels);
+        NearestSiteGrid siteGrid = createSiteGrid();
+        long startNanos = Metrics.startPhase();
+        fillTile(pixels, siteGrid, 0, 0, this.imageSize, 0, 0, this.imageSize, this.imageSize, metric, false);
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+    }
+
+    /**
+     * colorize all pixels in parallel on the common fork-join pool, tiles are of default size
+     * @param pixels storage for colors of imageSize * imageSize pixels
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     */
+    public void fillPixelsParallel(int[] pixels, boolean isManhattanRequired) {
+        fillPixelsParallel(pixels, DistanceMetric.of(isManhattanRequired), ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     *  colorize all pixels in parallel: image is split into square tiles, each tile is computed by executor. Result is
+     * identical to the serial {@link #fillPixels(int[], DistanceMetric)}
+     * @param pixels storage for colors of imageSize * imageSize pixels
+     * @param metric distance used for finding the closest interest point
+     * @param executor executor that will run tiles, fork-join pool or any another one
+     * @param tileSize side of the square tile in pixels
+     */
+    public void fillPixelsParallel(int[] pixels, DistanceMetric metric, ExecutorService executor, int tileSize) {
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be positive, got " + tileSize);
+        checkPixels(pixels);
+
+        //  spatial index is read-only after construction, so it is shared by all tiles
+        final NearestSiteGrid siteGrid = createSiteGrid();
+
+        //  form one task per tile of the image
+        List<Callable<Void>> tiles = new ArrayList<>();
+        for (int tileY = 0; tileY < this.imageSize; tileY += tileSize)
+            for (int tileX = 0; tileX < this.imageSize; tileX += tileSize) {
+                final int fromX = tileX;
+                final int fromY = tileY;
+                final int toX = Math.min(tileX + tileSize, this.imageSize);
+                final int toY = Math.min(tileY + tileSize, this.imageSize);
+                tiles.add(() -> {
+                    fillTile(pixels, siteGrid, 0, 0, this.imageSize, fromX, fromY, toX, toY, metric, false);
+                    return null;
+                });
+            }
+
+        //  run all tiles and wait for them, rethrow first failure if any
+        long startNanos = Metrics.startPhase();
+        ParallelTasks.runAll(executor, tiles);
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+    }
+
+    /**
+     *  colorize all pixels using Jump Flooding Algorithm on the common fork-join pool: labels are propagated over the
+     * image in O(log N) passes instead of checking every interest point for every pixel
+     * @param pixels storage for colors of imageSize * imageSize pixels
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     * @param isCorrectionRequired true if correction passes fixing rare wrong pixels must be run
+     */
+    public void fillPixelsJumpFlooding(int[] pixels, boolean isManhattanRequired, boolean isCorrectionRequired) {
+        fillPixelsJumpFlooding(pixels, DistanceMetric.of(isManhattanRequired), isCorrectionRequired);
+    }
+
+    /**
+     *  colorize all pixels using Jump Flooding Algorithm on the common fork-join pool: labels are propagated over the
+     * image in O(log N) passes instead of checking every interest point for every pixel
+     * @param pixels storage for colors of imageSize * imageSize pixels
+     * @param metric distance used for finding the closest interest point
+     * @param isCorrectionRequired true if correction passes fixing rare wrong pixels must be run
+     */
+    public void fillPixelsJumpFlooding(int[] pixels, DistanceMetric metric, boolean isCorrectionRequired) {
+        checkPixels(pixels);
+        long startNanos = Metrics.startPhase();
+        int[] labels = new JumpFlooding(this.interestPointsX, this.interestPointsY, this.interestPointsValue, this.imageSize)
+                .computeLabels(metric, isCorrectionRequired);
+        for (int pixel = 0; pixel < labels.length; pixel++)
+            pixels[pixel] = this.interestPointsColors[labels[pixel]] & 0xFFFFFF;
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+        Metrics.count(Counter.PIXELS_WRITTEN, labels.length);
+    }
+
+    /**
+     *  colorize all pixels using exact Euclidean feature transform: in O(N) for N pixels regardless of the amount of
+     * interest points, result is identical to euclidean linear scan
+     * @param pixels storage for colors of imageSize * imageSize pixels
+     * @param executor executor that will run bands of both passes, null to run them in the calling thread
+     * @return transform holding squared distance from each pixel to its interest point
+     */
+    public EuclideanFeatureTransform fillPixelsFeatureTransform(int[] pixels, ExecutorService executor) {
+        checkPixels(pixels);
+        long startNanos = Metrics.startPhase();
+        EuclideanFeatureTransform transform = new EuclideanFeatureTransform(this.interestPointsX, this.interestPointsY,
+                this.interestPointsValue, this.imageSize);
+        int[] labels = transform.computeLabels(executor);
+        for (int pixel = 0; pixel < labels.length; pixel++)
+            pixels[pixel] = this.interestPointsColors[labels[pixel]] & 0xFFFFFF;
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+        Metrics.count(Counter.PIXELS_WRITTEN, labels.length);
+        return transform;
+    }
+
+    /**
+     *  colorize or label horizontal strip of the image, so that images too large for one array can be produced strip by
+     * strip. First row of the strip is stored at the start of output, pixel (x, y) is at (y - fromRow) * imageSize + x.
+     * @param output storage for (toRow - fromRow) * imageSize values
+     * @param fromRow first row of the strip (inclusive)
+     * @param toRow last row of the strip (exclusive)
+     * @param siteGrid spatial index from {@link #createSiteGrid()}, shared by all strips of the image, null for linear scan
+     * @param metric distance used for finding the closest interest point
+     * @param isLabelRequired true if index of the closest interest point must be stored instead of its color
+     * @param executor executor that will run bands of the strip in parallel, null to run it in the calling thread
+     */
+    public void fillRows(int[] output, int fromRow, int toRow, NearestSiteGrid siteGrid, DistanceMetric metric,
+                         boolean isLabelRequired, ExecutorService executor) {
+        if (fromRow < 0 || toRow > this.imageSize || fromRow > toRow)
+            throw new IllegalArgumentException("Rows [" + fromRow + ", " + toRow + ") are outside of the image");
+        if ((long) (toRow - fromRow) * this.imageSize > output.length)
+            throw new IllegalArgumentException("Storage for " + (long) (toRow - fromRow) * this.imageSize + " values is required, got " + output.length);
+
+        long startNanos = Metrics.startPhase();
+        if (executor == null)
+            fillTile(output, siteGrid, fromRow, 0, this.imageSize, 0, fromRow, this.imageSize, toRow, metric, isLabelRequired);
+        else
+            ParallelTasks.runRowBands(executor, toRow - fromRow, ParallelTasks.defaultBands(), (fromBandRow, toBandRow) ->
+                    fillTile(output, siteGrid, fromRow, 0, this.imageSize, 0, fromRow + fromBandRow, this.imageSize, fromRow + toBandRow,
+                            metric, isLabelRequired));
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+    }
+
+    /**
+     *  colorize or label rectangular viewport of the image, pixel (x, y) of the viewport is stored at
+     * (y - fromY) * (toX - fromX) + (x - fromX), so that only the requested part of the image is computed
+     * @param output storage for (toX - fromX) * (toY - fromY) values
+     * @param fromX first column of the viewport (inclusive)
+     * @param fromY first row of the viewport (inclusive)
+     * @param toX last column of the viewport (exclusive)
+     * @param toY last row of the viewport (exclusive)
+     * @param siteGrid spatial index from {@link #createSiteGrid()}, null for linear scan
+     * @param metric distance used for finding the closest interest point
+     * @param isLabelRequired true if index of the closest interest point must be stored instead of its color
+     * @param executor executor that will run bands of the viewport in parallel, null to run it in the calling thread
+     */
+    public void fillViewport(int[] output, int fromX, int fromY, int toX, int toY, NearestSiteGrid siteGrid,
+                             DistanceMetric metric, boolean isLabelRequired, ExecutorService executor) {
+        if (fromX < 0 || fromY < 0 || toX > this.imageSize || toY > this.imageSize || fromX > toX || fromY > toY)
+            throw new IllegalArgumentException("Viewport [" + fromX + ", " + toX + ") x [" + fromY + ", " + toY + ") is outside of the image");
+        int width = toX - fromX;
+        if ((long) width * (toY - fromY) > output.length)
+            throw new IllegalArgumentException("Storage for " + (long) width * (toY - fromY) + " values is required, got " + output.length);
+
+        long startNanos = Metrics.startPhase();
+        if (executor == null)
+            fillTile(output, siteGrid, fromY, fromX, width, fromX, fromY, toX, toY, metric, isLabelRequired);
+        else
+            ParallelTasks.runRowBands(executor, toY - fromY, ParallelTasks.defaultBands(), (fromBandRow, toBandRow) ->
+                    fillTile(output, siteGrid, fromY, fromX, width, fromX, fromY + fromBandRow, toX, fromY + toBandRow,
+                            metric, isLabelRequired));
+        Metrics.endPhase(Phase.ASSIGNMENT, startNanos);
+    }
+
+    /**
+     *  compute index of the closest interest point of every pixel into compact raster, strip by strip, so that no int
+     * label per pixel is ever held for the whole image
+     * @param metric distance used for finding the closest interest point
+     * @param executor executor that will run bands of each strip in parallel, null to run it in the calling thread
+     * @return owner of every pixel
+     */
+    public LabelRaster computeLabelRaster(DistanceMetric metric, ExecutorService executor) {
+        LabelRaster labelRaster = LabelRaster.create(this.imageSize, this.imageSize, this.interestPointsValue);
+        int stripHeight = Math.max(1, Math.min(this.imageSize, LABEL_STRIP_PIXELS / this.imageSize));
+        int[] strip = new int[stripHeight * this.imageSize];
+        NearestSiteGrid siteGrid = createSiteGrid();
+        for (int fromRow = 0; fromRow < this.imageSize; fromRow += stripHeight) {
+            int toRow = Math.min(fromRow + stripHeight, this.imageSize);
+            fillRows(strip, fromRow, toRow, siteGrid, metric, true, executor);
+            labelRaster.setRows(strip, fromRow, toRow - fromRow);
+        }
+        return labelRaster;
+    }
+
+    /**
+     * colorize rectangular tile of the image
+     * @param output storage for colors or labels of pixels
+     * @param siteGrid spatial index over interest points, null if linear scan is required
+     * @param firstRow row of the image stored at the start of output
+     * @param firstColumn column of the image stored at the start of each output row
+     * @param outputWidth amount of values of one output row
+     * @param fromX first column of the tile (inclusive)
+     * @param fromY first row of the tile (inclusive)
+     * @param toX last column of the tile (exclusive)
+     * @param toY last row of the tile (exclusive)
+     * @param metric distance used for finding the closest interest point
+     * @param isLabelRequired true if index of the closest interest point must be stored instead of its color
+     */
+    private void fillTile(int[] output, NearestSiteGrid siteGrid, int firstRow, int firstColumn, int outputWidth,
+                          int fromX, int fromY, int toX, int toY, DistanceMetric metric, boolean isLabelRequired) {
+        //  linear scan goes through vectorized loop whenever it is available
+        NearestSiteKernel kernel = siteGrid == null ? NearestSiteKernel.forMetric(metric, this.imageSize) : null;
+        //  distances computed by grid searches, linear scan computes all of them for every pixel
+        long evaluations = 0;
+        for (int currentPointY = fromY; currentPointY < toY; currentPointY++) {
+            int rowOffset = (currentPointY - firstRow) * outputWidth - firstColumn;
+            for (int currentPointX = fromX; currentPointX < toX; currentPointX++) {
+                int closestInterestPointIndex;
+                if (siteGrid != null) {
+                    long counted = siteGrid.findClosestCounted(currentPointX, currentPointY, metric);
+                    closestInterestPointIndex = (int) counted;
+                    evaluations += counted >>> 32;
+                } else
+                    closestInterestPointIndex = kernel.findClosest(this.interestPointsX, this.interestPointsY,
+                            this.interestPointsValue, currentPointX, currentPointY);
+
+                //  TYPE_INT_RGB stores only color channels, alpha is dropped the same way setRGB does it
+                output[rowOffset + currentPointX] = isLabelRequired
+                        ? closestInterestPointIndex
+                        : this.interestPointsColors[closestInterestPointIndex] & 0xFFFFFF;
+            }
+        }
+
+        long pixelsValue = (long) (toX - fromX) * (toY - fromY);
+        Metrics.count(Counter.PIXELS_WRITTEN, pixelsValue);
+        Metrics.count(Counter.DISTANCE_EVALUATIONS, siteGrid != null ? evaluations : pixelsValue * this.interestPointsValue);
+    }
+
+    /**
+     * build spatial index over current interest points
+     * @return grid over interest points, null if spatial index is not required
+     */
+    public NearestSiteGrid createSiteGrid() {
+        if (!this.isSpatialIndexRequired)
+            return null;
+        long startNanos = Metrics.startPhase();
+        NearestSiteGrid siteGrid = new NearestSiteGrid(this.interestPointsX, this.interestPointsY, this.interestPointsValue, this.imageSize);
+        Metrics.endPhase(Phase.INDEX_BUILD, startNanos);
+        return siteGrid;
+    }
+
+    private void checkPixels(int[] pixels) {
+        if (pixels.length < (long) this.imageSize * this.imageSize)
+            throw new IllegalArgumentException("Storage for " + (long) this.imageSize * this.imageSize + " pixels is required, got " + pixels.length);
+    }
+
+    /**
+     * find interest point closest to the "pixel" by checking all of them, on equal distance the one with lower index wins
+     * @param interestPointsX X coordinates of interest points
+     * @param interestPointsY Y coordinates of interest points
+     * @param interestPointsValue how many interest points there are
+     * @param currentPointX position of the "pixel" on X-axis
+     * @param currentPointY position of the "pixel" on Y-axis
+     * @param isManhattanRequired true if manhattan distance calculation is required, false if euclidean
+     * @return index of the closest interest point
+     */
+    public static int findClosestByLinearScan(int[] interestPointsX, int[] interestPointsY, int interestPointsValue,
+                                              int currentPointX, int currentPointY, boolean isManhattanRequired) {
+        return DistanceMetric.of(isManhattanRequired).findClosest(interestPointsX, interestPointsY, interestPointsValue,
+                currentPointX, currentPointY);
+    }
+
+    /**
+     * find distance in two-dimensional space using Euclidean algorithm
+     * @param x1 position on X-axis of the first point
+     * @param x2 position on X-axis of the second point
+     * @param y1 position on Y-axis of the first point
+     * @param y2 position on Y-axis of the second point
+     * @return distance between two points on the two-dimensional array using Euclidian algorithm
+     */
+    public static double euclideanDistance2D(int x1, int x2, int y1, int y2) {
+        //  euclidean distance calculation between two points in two-dimensional space, squares are taken in long so
+        // that large images do not overflow
+        long dx = x1 - x2;
+        long dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * find distance in two-dimensional space using Manhattan algorithm
+     * @param x1 first point X coordinate
+     * @param x2 second point X coordinate
+     * @param y1 first point Y coordinate
+     * @param y2 second point Y coordinate
+     * @return distance between two points on two-dimensional space
+     */
+    public static double manhattanDistance2D(int x1, int x2, int y1, int y2) {
+        //  manhattan algorithm for estimating two-points distance in two-dimensional space
+        return Math.abs(x1 - x2) + Math.abs(y1 - y2);
+    }
+
+    /**
+     * set how nearest interest point is searched for each pixel
+     * @param isSpatialIndexRequired true if uniform grid over interest points must be used, false for linear scan
+     */
+    public void setSpatialIndexRequired(boolean isSpatialIndexRequired) {
+        this.isSpatialIndexRequired = isSpatialIndexRequired;
+    }
+
+    //  getters
+
+    public int getInterestPointsValue() {
+        return interestPointsValue;
+    }
+
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    public boolean isSpatialIndexRequired() {
+        return isSpatialIndexRequired;
+    }
+}
@@ -0,0 +1,159 @@
+package Sites;
+
+import java.util.Arrays;
+
+/**
+ *  Clipper of convex polygon by half planes working on primitive vertex buffers. Polygon is kept as interleaved X and Y
+ * coordinates in one of two buffers, each clip writes the result into another buffer and swaps them, so after buffers
+ * have grown to the required size no allocation happens at all. Locus of a site is always convex, so clipping the
+ * area rectangle by bisectors with all other sites gives exactly the same shape as intersection of Area objects
+ * (see HalfPlaneIntersectionOld.LocusAreas for conversion). Not thread-safe, each thread must use its own clipper.
+ */
+public class ConvexCellClipper {
+    //  current polygon and scratch buffer, both hold interleaved X and Y coordinates
+    private double[] vertices = new double[32];
+    private double[] scratch = new double[32];
+
+    //  amount of vertices in current polygon
+    private int vertexCount;
+
+    //  amount of half planes the clipper was asked to clip by since its creation
+    private long clipsValue;
+
+    /**
+     * Start new polygon from rectangle
+     * @param xMin left border
+     * @param yMin top border
+     * @param xMax right border
+     * @param yMax bottom border
+     */
+    public void reset(double xMin, double yMin, double xMax, double yMax) {
+        this.vertices[0] = xMin;
+        this.vertices[1] = yMin;
+        this.vertices[2] = xMax;
+        this.vertices[3] = yMin;
+        this.vertices[4] = xMax;
+        this.vertices[5] = yMax;
+        this.vertices[6] = xMin;
+        this.vertices[7] = yMax;
+        this.vertexCount = 4;
+    }
+
+    /**
+     * Start new polygon from given vertices
+     * @param polygon interleaved X and Y coordinates of convex polygon
+     */
+    public void load(double[] polygon) {
+        ensureCapacity(polygon.length / 2);
+        System.arraycopy(polygon, 0, this.vertices, 0, polygon.length);
+        this.vertexCount = polygon.length / 2;
+    }
+
+    /**
+     * Keep part of the polygon which is closer to the site than to another site
+     * @param siteX X coordinate of the site
+     * @param siteY Y coordinate of the site
+     * @param anotherX X coordinate of another site
+     * @param anotherY Y coordinate of another site
+     */
+    public void clipByBisector(double siteX, double siteY, double anotherX, double anotherY) {
+        //  point p is closer to the site if (another - site) * (middle - p) >= 0
+        double nx = siteX - anotherX;
+        double ny = siteY - anotherY;
+        double offset = -(nx * (siteX + anotherX) + ny * (siteY + anotherY)) / 2;
+        clipByHalfPlane(nx, ny, offset);
+    }
+
+    /**
+     * Keep part of the polygon where nx * x + ny * y + offset >= 0 (one step of Sutherland-Hodgman algorithm)
+     * @param nx X component of the half plane normal
+     * @param ny Y component of the half plane normal
+     * @param offset offset of the half plane border
+     */
+    public void clipByHalfPlane(double nx, double ny, double offset) {
+        this.clipsValue++;
+
+        //  most half planes do not cut the polygon at all, nothing has to be copied for them
+        boolean isCut = false;
+        for (int i = 0; i < this.vertexCount && !isCut; i++)
+            isCut = nx * this.vertices[2 * i] + ny * this.vertices[2 * i + 1] + offset < 0;
+        if (!isCut)
+            return;
+
+        //  convex polygon clipped by half plane gains at most one vertex
+        ensureCapacity(this.vertexCount + 1);
+
+        int size = 0;
+        for (int i = 0; i < this.vertexCount; i++) {
+            int j = i + 1 == this.vertexCount ? 0 : i + 1;
+            double x1 = this.vertices[2 * i], y1 = this.vertices[2 * i + 1];
+            double x2 = this.vertices[2 * j], y2 = this.vertices[2 * j + 1];
+            double side1 = nx * x1 + ny * y1 + offset;
+            double side2 = nx * x2 + ny * y2 + offset;
+            if (side1 >= 0) {
+                this.scratch[size++] = x1;
+                this.scratch[size++] = y1;
+            }
+            //  border is crossed only if ends lie strictly on different sides, vertex on the border is kept as it is
+            if ((side1 > 0 && side2 < 0) || (side1 < 0 && side2 > 0)) {
+                double t = side1 / (side1 - side2);
+                this.scratch[size++] = x1 + t * (x2 - x1);
+                this.scratch[size++] = y1 + t * (y2 - y1);
+            }
+        }
+
+        double[] swap = this.vertices;
+        this.vertices = this.scratch;
+        this.scratch = swap;
+        this.vertexCount = size / 2;
+    }
+
+    /**
+     * Find how far the farthest vertex of current polygon is from the point
+     * @param x X coordinate of the point
+     * @param y Y coordinate of the point
+     * @return squared distance to the farthest vertex, 0 for empty polygon
+     */
+    public double maxDistanceSquared(double x, double y) {
+        double maxDistance = 0;
+        for (int i = 0; i < this.vertexCount; i++) {
+            double dx = this.vertices[2 * i] - x;
+            double dy = this.vertices[2 * i + 1] - y;
+            maxDistance = Math.max(maxDistance, dx * dx + dy * dy);
+        }
+        return maxDistance;
+    }
+
+    /**
+     * Copy current polygon out of clipper
+     * @return interleaved X and Y coordinates of polygon vertices
+     */
+    public double[] copyVertices() {
+        return Arrays.copyOf(this.vertices, this.vertexCount * 2);
+    }
+
+    /**
+     * Grow both buffers if they cannot hold required amount of vertices, current polygon is preserved
+     * @param vertexCount required amount of vertices
+     */
+    private void ensureCapacity(int vertexCount) {
+        if (this.vertices.length < vertexCount * 2) {
+            this.vertices = Arrays.copyOf(this.vertices, vertexCount * 4);
+            this.scratch = new double[vertexCount * 4];
+        }
+    }
+
+    //  getters
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public long getClipsValue() {
+        return clipsValue;
+    }
+
+    public boolean isEmpty() {
+        return vertexCount == 0;
+    }
+}
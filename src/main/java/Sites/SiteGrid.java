@@ -0,0 +1,289 @@
+package Sites;
+
+/**
+ *  Uniform grid over sites used both for pruned locus estimation and for search of the closest site. Cells are
+ * visited in rings of growing radius around a point until every unvisited site is farther than the bound set by the
+ * visitor: for locus estimation it is twice the distance to the farthest vertex of the current polygon (bisector with
+ * another site lies at half of the distance to it), for the closest site search it is the distance to the best site
+ * found so far. For evenly spread sites only a handful of neighbours are visited, so finding all loci takes about
+ * O(n * k) instead of O(n^2). Grid is not changed after construction and may be shared between threads, clippers and
+ * searches may not.
+ */
+public class SiteGrid {
+    //  average amount of sites that grid tries to put into one cell
+    public static final int SITES_PER_CELL = 2;
+
+    //  amount of cells on each side of the grid and size of one cell
+    private final int cellsX;
+    private final int cellsY;
+    private final double cellSize;
+
+    //  area clipped by bisectors
+    private final double width;
+    private final double height;
+
+    //  cell of each site is range [cellStart[cell], cellStart[cell + 1]) in arrays below
+    private final int[] cellStart;
+
+    //  coordinates and original indexes of sites ordered by cell, inside of cell ordered by index
+    private final double[] sortedX;
+    private final double[] sortedY;
+    private final int[] sortedIndex;
+
+    //  position of each site in arrays above by its original index
+    private final int[] positionOf;
+
+    private final int sitesValue;
+
+    /**
+     * Constructor, builds grid over sites in O(n) via counting sort, coordinates are copied
+     * @param sitesX X coordinates of sites
+     * @param sitesY Y coordinates of sites
+     * @param sitesValue how many sites there are
+     * @param width width of the area, locus of each site is clipped out of [0, width] x [0, height]
+     * @param height height of the area
+     */
+    public SiteGrid(double[] sitesX, double[] sitesY, int sitesValue, double width, double height) {
+        if (sitesValue <= 0)
+            throw new IllegalArgumentException("Grid requires at least one site");
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Area of " + width + "x" + height + " is empty");
+        this.width = width;
+        this.height = height;
+        this.sitesValue = sitesValue;
+
+        //  square cells holding around SITES_PER_CELL sites each
+        this.cellSize = Math.sqrt(width * height * SITES_PER_CELL / sitesValue);
+        this.cellsX = Math.max(1, (int) Math.ceil(width / this.cellSize));
+        this.cellsY = Math.max(1, (int) Math.ceil(height / this.cellSize));
+
+        //  count sites in each cell, then turn counts into starting positions
+        int[] siteCells = new int[sitesValue];
+        this.cellStart = new int[this.cellsX * this.cellsY + 1];
+        for (int i = 0; i < sitesValue; i++) {
+            siteCells[i] = clampCellY(cellY(sitesY[i])) * this.cellsX + clampCellX(cellX(sitesX[i]));
+            this.cellStart[siteCells[i] + 1]++;
+        }
+        for (int cell = 0; cell < this.cellsX * this.cellsY; cell++)
+            this.cellStart[cell + 1] += this.cellStart[cell];
+
+        //  place sites into cells, going by index keeps sites of each cell ordered by index
+        this.sortedX = new double[sitesValue];
+        this.sortedY = new double[sitesValue];
+        this.sortedIndex = new int[sitesValue];
+        this.positionOf = new int[sitesValue];
+        int[] cellFill = new int[this.cellsX * this.cellsY];
+        for (int i = 0; i < sitesValue; i++) {
+            int position = this.cellStart[siteCells[i]] + cellFill[siteCells[i]]++;
+            this.sortedX[position] = sitesX[i];
+            this.sortedY[position] = sitesY[i];
+            this.sortedIndex[position] = i;
+            this.positionOf[i] = position;
+        }
+    }
+
+    /**
+     *  Visit cells in rings of growing radius around the point until every unvisited site is farther than the bound,
+     * the bound is updated by each visit
+     * @param x position of the point on X-axis
+     * @param y position of the point on Y-axis
+     * @param reachSquared squared distance beyond which sites are of no interest, negative to visit nothing
+     * @param visitor receiver of visited cells
+     */
+    private void visitRings(double x, double y, double reachSquared, CellVisitor visitor) {
+        int cellX = clampCellX(cellX(x));
+        int cellY = clampCellY(cellY(y));
+
+        for (int ring = 0; reachSquared >= 0; ring++) {
+            int fromCellX = cellX - ring;
+            int toCellX = cellX + ring;
+            int fromCellY = cellY - ring;
+            int toCellY = cellY + ring;
+
+            //  visit cells lying exactly on the ring border
+            for (int currentCellY = Math.max(fromCellY, 0); currentCellY <= Math.min(toCellY, this.cellsY - 1); currentCellY++) {
+                boolean isBorderRow = currentCellY == fromCellY || currentCellY == toCellY;
+                int step = isBorderRow ? 1 : toCellX - fromCellX;
+                for (int currentCellX = fromCellX; currentCellX <= toCellX; currentCellX += step) {
+                    if (currentCellX < 0 || currentCellX >= this.cellsX)
+                        continue;
+
+                    int cell = currentCellY * this.cellsX + currentCellX;
+                    if (this.cellStart[cell] == this.cellStart[cell + 1])
+                        continue;
+                    reachSquared = visitor.visit(this.cellStart[cell], this.cellStart[cell + 1]);
+                    if (reachSquared < 0)
+                        return;
+                }
+            }
+
+            //  all cells were visited
+            if (fromCellX <= 0 && fromCellY <= 0 && toCellX >= this.cellsX - 1 && toCellY >= this.cellsY - 1)
+                return;
+
+            //  any unvisited site is at least this far, sites outside of the area never stop the search early
+            double gap = Math.max(0, Math.min(
+                    Math.min(x - fromCellX * this.cellSize, (toCellX + 1) * this.cellSize - x),
+                    Math.min(y - fromCellY * this.cellSize, (toCellY + 1) * this.cellSize - y)
+            ));
+            if (gap * gap > reachSquared)
+                return;
+        }
+    }
+
+    /**
+     *  Find locus of one site in the clipper: area rectangle is clipped by bisectors with sites of growing rings of
+     * cells around the site until no unvisited site may cut the polygon. Result is the same polygon as clipping by all
+     * sites gives, up to rounding caused by another order of clips.
+     * @param site index of the site
+     * @param clipper clipper receiving the locus, must not be shared between threads
+     */
+    public void clipLocus(int site, ConvexCellClipper clipper) {
+        double siteX = getX(site);
+        double siteY = getY(site);
+        clipper.reset(0, 0, this.width, this.height);
+        double initialReachSquared = 4 * clipper.maxDistanceSquared(siteX, siteY);
+        visitRings(siteX, siteY, initialReachSquared, new CellVisitor() {
+            //  squared distance to another site, beyond which its bisector cannot cut the polygon
+            private double reachSquared = initialReachSquared;
+
+            @Override
+            public double visit(int fromPosition, int toPosition) {
+                for (int position = fromPosition; position < toPosition; position++) {
+                    double anotherX = sortedX[position];
+                    double anotherY = sortedY[position];
+                    //  sites with the same coordinates do not split area
+                    if (anotherX == siteX && anotherY == siteY)
+                        continue;
+                    double dx = anotherX - siteX;
+                    double dy = anotherY - siteY;
+                    if (dx * dx + dy * dy > this.reachSquared)
+                        continue;
+                    clipper.clipByBisector(siteX, siteY, anotherX, anotherY);
+                    if (clipper.isEmpty())
+                        return -1;
+                    this.reachSquared = 4 * clipper.maxDistanceSquared(siteX, siteY);
+                }
+                return this.reachSquared;
+            }
+        });
+    }
+
+    private int cellX(double x) {
+        return (int) Math.floor(x / this.cellSize);
+    }
+
+    private int cellY(double y) {
+        return (int) Math.floor(y / this.cellSize);
+    }
+
+    private int clampCellX(int cell) {
+        return Math.max(0, Math.min(cell, this.cellsX - 1));
+    }
+
+    private int clampCellY(int cell) {
+        return Math.max(0, Math.min(cell, this.cellsY - 1));
+    }
+
+    /**
+     * Receiver of cells visited by {@link #visitRings}
+     */
+    private interface CellVisitor {
+        /**
+         * @param fromPosition position of the first site of the cell in sorted arrays (inclusive)
+         * @param toPosition position of the last site of the cell in sorted arrays (exclusive)
+         * @return squared distance from the point beyond which further sites are of no interest, negative to stop
+         */
+        double visit(int fromPosition, int toPosition);
+    }
+
+    /**
+     *  Search of the site closest to a point in Euclidean metric, on equal distance the one with lower index wins.
+     * Search holds state of one query, so that queries allocate nothing; it must not be shared between threads.
+     */
+    public static final class ClosestSiteSearch implements CellVisitor {
+        private final SiteGrid siteGrid;
+
+        //  queried point and the best site found so far
+        private double x;
+        private double y;
+        private int closestIndex;
+        private double closestDistance;
+
+        /**
+         * Constructor
+         * @param siteGrid grid searched for the closest site
+         */
+        public ClosestSiteSearch(SiteGrid siteGrid) {
+            this.siteGrid = siteGrid;
+        }
+
+        /**
+         * find site closest to the point, search is bounded from the start by distance to the hinted site, so that
+         * a good hint leaves only the closest cells to visit. Result does not depend on the hint.
+         * @param x position of the point on X-axis
+         * @param y position of the point on Y-axis
+         * @param hint index of site likely to be the closest one, -1 if there is none
+         * @return index of the closest site
+         */
+        public int findClosest(double x, double y, int hint) {
+            this.x = x;
+            this.y = y;
+            this.closestIndex = Integer.MAX_VALUE;
+            this.closestDistance = Double.MAX_VALUE;
+            if (hint >= 0) {
+                int position = this.siteGrid.positionOf[hint];
+                visit(position, position + 1);
+            }
+            this.siteGrid.visitRings(x, y, this.closestDistance, this);
+            return this.closestIndex;
+        }
+
+        @Override
+        public double visit(int fromPosition, int toPosition) {
+            double[] sortedX = this.siteGrid.sortedX;
+            double[] sortedY = this.siteGrid.sortedY;
+            int[] sortedIndex = this.siteGrid.sortedIndex;
+            int closestIndex = this.closestIndex;
+            double closestDistance = this.closestDistance;
+            for (int position = fromPosition; position < toPosition; position++) {
+                double dx = sortedX[position] - this.x;
+                double dy = sortedY[position] - this.y;
+                double distance = dx * dx + dy * dy;
+                if (distance < closestDistance || (distance == closestDistance && sortedIndex[position] < closestIndex)) {
+                    closestDistance = distance;
+                    closestIndex = sortedIndex[position];
+                }
+            }
+            this.closestIndex = closestIndex;
+            this.closestDistance = closestDistance;
+            return closestDistance;
+        }
+    }
+
+    //  getters
+
+    public int getCellsX() {
+        return cellsX;
+    }
+
+    public int getCellsY() {
+        return cellsY;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int getSitesValue() {
+        return sitesValue;
+    }
+
+    public double getX(int site) {
+        return sortedX[positionOf[site]];
+    }
+
+    public double getY(int site) {
+        return sortedY[positionOf[site]];
+    }
+}
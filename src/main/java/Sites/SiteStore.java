@@ -0,0 +1,164 @@
+package Sites;
+
+import java.util.Arrays;
+
+/**
+ *  Compact storage of sites as parallel primitive arrays: X and Y coordinates and RGB color of site with integer ID i
+ * are kept at position i of each array. One site takes 20 bytes without any object header, sites are read in order of
+ * their IDs with sequential memory access, so millions of sites fit in cache-friendly form. Coordinates are of double
+ * precision the geometric engines compute in, so that they read backing arrays directly without copying, only first
+ * {@link #getSitesValue()} elements of them are valid. Pixel engines working over integer coordinates take them from
+ * {@link #roundSitesX()} and {@link #roundSitesY()}.
+ */
+public class SiteStore {
+    //  capacity of store created without explicit one
+    private static final int DEFAULT_CAPACITY = 16;
+
+    //  coordinates of sites
+    private double[] sitesX;
+    private double[] sitesY;
+
+    //  RGB color of each site
+    private int[] sitesColors;
+
+    //  amount of stored sites, IDs are from 0 to sitesValue exclusive
+    private int sitesValue;
+
+    /**
+     * Constructor, empty store
+     */
+    public SiteStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor, empty store with space for given amount of sites, so that no growth happens while it is filled
+     * @param capacity expected amount of sites
+     */
+    public SiteStore(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity must not be negative, got " + capacity);
+        this.sitesX = new double[capacity];
+        this.sitesY = new double[capacity];
+        this.sitesColors = new int[capacity];
+    }
+
+    /**
+     * Add site
+     * @param x X coordinate of the site
+     * @param y Y coordinate of the site
+     * @param color RGB color of the site
+     * @return ID of the new site
+     */
+    public int add(double x, double y, int color) {
+        if (this.sitesValue == this.sitesX.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, this.sitesValue + (this.sitesValue >> 1));
+            this.sitesX = Arrays.copyOf(this.sitesX, capacity);
+            this.sitesY = Arrays.copyOf(this.sitesY, capacity);
+            this.sitesColors = Arrays.copyOf(this.sitesColors, capacity);
+        }
+        this.sitesX[this.sitesValue] = x;
+        this.sitesY[this.sitesValue] = y;
+        this.sitesColors[this.sitesValue] = color;
+        return this.sitesValue++;
+    }
+
+    /**
+     * Move site to another position
+     * @param site ID of the site
+     * @param x new X coordinate of the site
+     * @param y new Y coordinate of the site
+     */
+    public void setPosition(int site, double x, double y) {
+        checkSite(site);
+        this.sitesX[site] = x;
+        this.sitesY[site] = y;
+    }
+
+    /**
+     * Change color of the site
+     * @param site ID of the site
+     * @param color new RGB color of the site
+     */
+    public void setColor(int site, int color) {
+        checkSite(site);
+        this.sitesColors[site] = color;
+    }
+
+    /**
+     * Remove all sites, arrays are kept for reuse
+     */
+    public void clear() {
+        this.sitesValue = 0;
+    }
+
+    /**
+     * Round X coordinates to the closest pixel for engines working over integer coordinates
+     * @return new array of rounded X coordinates of all sites
+     */
+    public int[] roundSitesX() {
+        return round(this.sitesX, this.sitesValue);
+    }
+
+    /**
+     * Round Y coordinates to the closest pixel for engines working over integer coordinates
+     * @return new array of rounded Y coordinates of all sites
+     */
+    public int[] roundSitesY() {
+        return round(this.sitesY, this.sitesValue);
+    }
+
+    private static int[] round(double[] coordinates, int length) {
+        int[] rounded = new int[length];
+        for (int i = 0; i < length; i++)
+            rounded[i] = (int) Math.round(coordinates[i]);
+        return rounded;
+    }
+
+    private void checkSite(int site) {
+        if (site < 0 || site >= this.sitesValue)
+            throw new IndexOutOfBoundsException("Site " + site + " is not in store of " + this.sitesValue + " sites");
+    }
+
+    //  getters
+
+    public double getX(int site) {
+        checkSite(site);
+        return sitesX[site];
+    }
+
+    public double getY(int site) {
+        checkSite(site);
+        return sitesY[site];
+    }
+
+    public int getColor(int site) {
+        checkSite(site);
+        return sitesColors[site];
+    }
+
+    public int getSitesValue() {
+        return sitesValue;
+    }
+
+    /**
+     * @return backing array of X coordinates, valid up to amount of sites, replaced when store grows
+     */
+    public double[] getSitesX() {
+        return sitesX;
+    }
+
+    /**
+     * @return backing array of Y coordinates, valid up to amount of sites, replaced when store grows
+     */
+    public double[] getSitesY() {
+        return sitesY;
+    }
+
+    /**
+     * @return backing array of colors, valid up to amount of sites, replaced when store grows
+     */
+    public int[] getSitesColors() {
+        return sitesColors;
+    }
+}
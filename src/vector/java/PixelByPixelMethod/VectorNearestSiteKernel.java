@@ -0,0 +1,165 @@
+package PixelByPixelMethod;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ *  Vectorized loop finding the closest interest point. Distances to as many interest points as the preferred vector
+ * holds are computed at once in 32-bit lanes, each lane keeps its own minimum distance and index of interest point with
+ * it, and lanes are reduced only at the end. Strict comparison keeps the lower index inside a lane, reduction picks
+ * the lowest index among lanes with the minimum, remaining interest points are checked one by one after all lanes, so
+ * labels are the same the scalar loop gives. Only built by "vector" profile, loaded through
+ * {@link NearestSiteKernel#forMetric(DistanceMetric, int)}.
+ */
+public final class VectorNearestSiteKernel implements NearestSiteKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    //  largest image side whose squared distances fit into int lanes: 2 * 32767^2 < 2^31
+    private static final int EUCLIDEAN_MAX_IMAGE_SIZE = 32768;
+
+    //  largest image side whose manhattan distances fit into int lanes
+    private static final int MANHATTAN_MAX_IMAGE_SIZE = 1 << 30;
+
+    //  0, 1, ... lane count - 1, indexes of interest points of the first vector
+    private static final int[] LANE_INDEXES = new int[SPECIES.length()];
+
+    static {
+        for (int i = 0; i < LANE_INDEXES.length; i++)
+            LANE_INDEXES[i] = i;
+    }
+
+    private final DistanceMetric metric;
+
+    /**
+     * Constructor
+     * @param metric Euclidean, Manhattan or Chebyshev metric
+     * @param imageSize side of the image, all interest points and points must be inside of it
+     * @throws IllegalArgumentException if distances of the metric do not fit into int lanes
+     */
+    public VectorNearestSiteKernel(DistanceMetric metric, int imageSize) {
+        boolean isSupported = metric == DistanceMetric.EUCLIDEAN
+                ? imageSize <= EUCLIDEAN_MAX_IMAGE_SIZE
+                : (metric == DistanceMetric.MANHATTAN || metric == DistanceMetric.CHEBYSHEV) && imageSize <= MANHATTAN_MAX_IMAGE_SIZE;
+        if (!isSupported)
+            throw new IllegalArgumentException("Metric " + metric + " is not vectorized for image size " + imageSize);
+        this.metric = metric;
+    }
+
+    @Override
+    public int findClosest(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+        if (this.metric == DistanceMetric.EUCLIDEAN)
+            return findClosestEuclidean(interestPointsX, interestPointsY, interestPointsValue, x, y);
+        if (this.metric == DistanceMetric.MANHATTAN)
+            return findClosestManhattan(interestPointsX, interestPointsY, interestPointsValue, x, y);
+        return findClosestChebyshev(interestPointsX, interestPointsY, interestPointsValue, x, y);
+    }
+
+    private static int findClosestEuclidean(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+        IntVector pointX = IntVector.broadcast(SPECIES, x);
+        IntVector pointY = IntVector.broadcast(SPECIES, y);
+        IntVector closestDistances = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        IntVector closestIndexes = IntVector.zero(SPECIES);
+        IntVector indexes = IntVector.fromArray(SPECIES, LANE_INDEXES, 0);
+        IntVector indexStep = IntVector.broadcast(SPECIES, SPECIES.length());
+
+        int vectorBound = SPECIES.loopBound(interestPointsValue);
+        for (int i = 0; i < vectorBound; i += SPECIES.length()) {
+            IntVector dx = IntVector.fromArray(SPECIES, interestPointsX, i).sub(pointX);
+            IntVector dy = IntVector.fromArray(SPECIES, interestPointsY, i).sub(pointY);
+            IntVector distances = dx.mul(dx).add(dy.mul(dy));
+            VectorMask<Integer> isCloser = distances.lt(closestDistances);
+            closestDistances = closestDistances.blend(distances, isCloser);
+            closestIndexes = closestIndexes.blend(indexes, isCloser);
+            indexes = indexes.add(indexStep);
+        }
+
+        int closestDistance = closestDistances.reduceLanes(VectorOperators.MIN);
+        int closest = reduceIndex(closestDistances, closestIndexes, closestDistance);
+        for (int i = vectorBound; i < interestPointsValue; i++) {
+            int dx = interestPointsX[i] - x;
+            int dy = interestPointsY[i] - y;
+            int distance = dx * dx + dy * dy;
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    private static int findClosestManhattan(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+        IntVector pointX = IntVector.broadcast(SPECIES, x);
+        IntVector pointY = IntVector.broadcast(SPECIES, y);
+        IntVector closestDistances = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        IntVector closestIndexes = IntVector.zero(SPECIES);
+        IntVector indexes = IntVector.fromArray(SPECIES, LANE_INDEXES, 0);
+        IntVector indexStep = IntVector.broadcast(SPECIES, SPECIES.length());
+
+        int vectorBound = SPECIES.loopBound(interestPointsValue);
+        for (int i = 0; i < vectorBound; i += SPECIES.length()) {
+            IntVector dx = IntVector.fromArray(SPECIES, interestPointsX, i).sub(pointX).abs();
+            IntVector dy = IntVector.fromArray(SPECIES, interestPointsY, i).sub(pointY).abs();
+            IntVector distances = dx.add(dy);
+            VectorMask<Integer> isCloser = distances.lt(closestDistances);
+            closestDistances = closestDistances.blend(distances, isCloser);
+            closestIndexes = closestIndexes.blend(indexes, isCloser);
+            indexes = indexes.add(indexStep);
+        }
+
+        int closestDistance = closestDistances.reduceLanes(VectorOperators.MIN);
+        int closest = reduceIndex(closestDistances, closestIndexes, closestDistance);
+        for (int i = vectorBound; i < interestPointsValue; i++) {
+            int distance = Math.abs(interestPointsX[i] - x) + Math.abs(interestPointsY[i] - y);
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    private static int findClosestChebyshev(int[] interestPointsX, int[] interestPointsY, int interestPointsValue, int x, int y) {
+        IntVector pointX = IntVector.broadcast(SPECIES, x);
+        IntVector pointY = IntVector.broadcast(SPECIES, y);
+        IntVector closestDistances = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        IntVector closestIndexes = IntVector.zero(SPECIES);
+        IntVector indexes = IntVector.fromArray(SPECIES, LANE_INDEXES, 0);
+        IntVector indexStep = IntVector.broadcast(SPECIES, SPECIES.length());
+
+        int vectorBound = SPECIES.loopBound(interestPointsValue);
+        for (int i = 0; i < vectorBound; i += SPECIES.length()) {
+            IntVector dx = IntVector.fromArray(SPECIES, interestPointsX, i).sub(pointX).abs();
+            IntVector dy = IntVector.fromArray(SPECIES, interestPointsY, i).sub(pointY).abs();
+            IntVector distances = dx.max(dy);
+            VectorMask<Integer> isCloser = distances.lt(closestDistances);
+            closestDistances = closestDistances.blend(distances, isCloser);
+            closestIndexes = closestIndexes.blend(indexes, isCloser);
+            indexes = indexes.add(indexStep);
+        }
+
+        int closestDistance = closestDistances.reduceLanes(VectorOperators.MIN);
+        int closest = reduceIndex(closestDistances, closestIndexes, closestDistance);
+        for (int i = vectorBound; i < interestPointsValue; i++) {
+            int distance = Math.max(Math.abs(interestPointsX[i] - x), Math.abs(interestPointsY[i] - y));
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * lowest index among lanes holding the minimum distance, 0 if no lane was filled
+     * @param closestDistances minimum distance of each lane
+     * @param closestIndexes index of interest point with minimum distance of each lane
+     * @param closestDistance minimum over all lanes
+     * @return index of the closest interest point among checked by lanes
+     */
+    private static int reduceIndex(IntVector closestDistances, IntVector closestIndexes, int closestDistance) {
+        VectorMask<Integer> isClosest = closestDistances.eq(closestDistance);
+        return closestIndexes.blend(Integer.MAX_VALUE, isClosest.not()).reduceLanes(VectorOperators.MIN);
+    }
+}